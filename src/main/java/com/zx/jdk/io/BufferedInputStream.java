@@ -1,6 +1,8 @@
 package com.zx.jdk.io;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteOrder;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 /**
  * 缓冲输入流类-处理流-装饰者
@@ -244,6 +246,131 @@ public class BufferedInputStream extends FilterInputStream {
         }
     }
 
+    /**
+     * 批量读取len个int到dst[]数组的off位置，order为流中数据的字节顺序
+     * 直接在缓冲区上解码，整个调用只获取一次锁；只有缓冲区中剩下的字节不够一个int时，才逐字节读取这个int，
+     * 缓冲区读完时才调用fill()补充
+     * 流中的数据不够len个int时抛出EOFException，此时dst[]中已经解码的部分是不确定的
+     */
+    public synchronized void readInts(int[] dst, int off, int len, ByteOrder order) throws IOException {
+        checkBulkRead(dst.length, off, len, order);
+        boolean swap = order == ByteOrder.LITTLE_ENDIAN;
+        while (len > 0) {
+            byte[] buffer = getBufIfOpen();
+            //缓冲区中完整的int个数
+            int n = Math.min((count - pos) >> 2, len);
+            if (n == 0) {
+                //剩下的字节不够一个int，这个int跨越了缓冲区的末尾
+                int v = (int) readBigEndian(4);
+                dst[off++] = swap ? Integer.reverseBytes(v) : v;
+                len--;
+                continue;
+            }
+            int p = pos;
+            for (int end = off + n; off < end; off++, p += 4) {
+                int v = getInt(buffer, p);
+                dst[off] = swap ? Integer.reverseBytes(v) : v;
+            }
+            pos = p;
+            len -= n;
+        }
+    }
+
+    /**
+     * 批量读取len个long到dst[]数组的off位置，order为流中数据的字节顺序
+     * 规则和readInts()相同
+     */
+    public synchronized void readLongs(long[] dst, int off, int len, ByteOrder order) throws IOException {
+        checkBulkRead(dst.length, off, len, order);
+        readLongs(dst, null, off, len, order == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 批量读取len个double到dst[]数组的off位置，order为流中数据的字节顺序
+     * 每个double按64位的位模式读取，再用Double.longBitsToDouble()转换，规则和readInts()相同
+     */
+    public synchronized void readDoubles(double[] dst, int off, int len, ByteOrder order) throws IOException {
+        checkBulkRead(dst.length, off, len, order);
+        readLongs(null, dst, off, len, order == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    //检查流没有关闭，以及批量读取的参数，order为null时抛出NullPointerException
+    private void checkBulkRead(int length, int off, int len, ByteOrder order) throws IOException {
+        getBufIfOpen();
+        if (order == null) {
+            throw new NullPointerException();
+        }
+        if ((off | len | (off + len) | (length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * readLongs()和readDoubles()共用的读取循环：longs和doubles只有一个不为null，
+     * 都先按64位读取，写入doubles时再用Double.longBitsToDouble()转换
+     */
+    private void readLongs(long[] longs, double[] doubles, int off, int len, boolean swap) throws IOException {
+        while (len > 0) {
+            byte[] buffer = getBufIfOpen();
+            //缓冲区中完整的long个数
+            int n = Math.min((count - pos) >> 3, len);
+            if (n == 0) {
+                //剩下的字节不够一个long，这个long跨越了缓冲区的末尾
+                long v = readBigEndian(8);
+                v = swap ? Long.reverseBytes(v) : v;
+                if (longs != null) {
+                    longs[off++] = v;
+                } else {
+                    doubles[off++] = Double.longBitsToDouble(v);
+                }
+                len--;
+                continue;
+            }
+            int p = pos;
+            int end = off + n;
+            if (longs != null) {
+                for (; off < end; off++, p += 8) {
+                    long v = getLong(buffer, p);
+                    longs[off] = swap ? Long.reverseBytes(v) : v;
+                }
+            } else {
+                for (; off < end; off++, p += 8) {
+                    long v = getLong(buffer, p);
+                    doubles[off] = Double.longBitsToDouble(swap ? Long.reverseBytes(v) : v);
+                }
+            }
+            pos = p;
+            len -= n;
+        }
+    }
+
+    //逐字节读取size个字节，按大端顺序组成一个数，缓冲区读完时调用fill()，流结束时抛出EOFException
+    private long readBigEndian(int size) throws IOException {
+        long v = 0;
+        for (int i = 0; i < size; i++) {
+            if (pos >= count) {
+                fill();
+                if (pos >= count)
+                    throw new EOFException();
+            }
+            v = (v << 8) | (getBufIfOpen()[pos++] & 0xff);
+        }
+        return v;
+    }
+
+    //按大端顺序读取b[]数组p位置的int
+    private static int getInt(byte[] b, int p) {
+        return ((b[p]           ) << 24) |
+               ((b[p + 1] & 0xff) << 16) |
+               ((b[p + 2] & 0xff) <<  8) |
+               ((b[p + 3] & 0xff)      );
+    }
+
+    //按大端顺序读取b[]数组p位置的long
+    private static long getLong(byte[] b, int p) {
+        return (((long) getInt(b, p)) << 32) | (getInt(b, p + 4) & 0xFFFFFFFFL);
+    }
+
     //跳过n长度的字节
     public synchronized long skip(long n) throws IOException {
         //使用该方法只是为了检查这个流是不是关闭的，如果关闭，则该方法会抛出异常
@@ -1,5 +1,6 @@
 package com.zx.jdk.io;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 /**
  * 字节数组输入流 - 处理流(被装饰者)
  * 该类是在构造时传入一个byte[]，该数组在该类中就是流，而非缓存数组，所有的读取操作都是直接从该数组中读取
@@ -91,6 +92,76 @@ public class ByteArrayInputStream extends InputStream {
         //返回读取了的字节长度
         return len;
     }
+    //newView()最近一次返回的视图，以及创建它时的buf[]，readSlice(int, ByteBuffer)只接受这个视图
+    private ByteBuffer view;
+    private byte[] viewBuf;
+
+    /**同步
+     * 创建一个覆盖整个buf[]的只读视图，它和该流共享同一个数组，不拷贝数据
+     * 可以反复传给readSlice(int, ByteBuffer)使用，这样每次读取都不会创建新对象；
+     * 只有最近一次调用返回的视图可以传给readSlice(int, ByteBuffer)
+     */
+    public synchronized ByteBuffer newView() {
+        return createView();
+    }
+
+    //创建视图并记录下来，不同步
+    final ByteBuffer createView() {
+        view = ByteBuffer.wrap(buf).asReadOnlyBuffer();
+        viewBuf = buf;
+        return view;
+    }
+
+    /**同步
+     * 零拷贝地读取最多n个字节：不拷贝数据，而是将view的position和limit设置为buf[]中 pos到pos+n 这一段，然后将pos往后移动
+     * view的position就是buf[]中的下标，所以view必须是该流最近一次newView()返回的视图，否则抛出IllegalArgumentException
+     * 如果没有可读字节，view中没有剩余字节(remaining()为0)
+     * 构造时传入的数组在使用视图期间不能被修改
+     */
+    public synchronized ByteBuffer readSlice(int n, ByteBuffer view) {
+        checkView(view);
+        return slice(n, view);
+    }
+
+    /**同步
+     * 零拷贝地读取最多n个字节，返回一个新的只读视图，和readSlice(int, ByteBuffer)一样，视图的position就是buf[]中的下标
+     */
+    public synchronized ByteBuffer readSlice(int n) {
+        return slice(n, ByteBuffer.wrap(buf).asReadOnlyBuffer());
+    }
+
+    /**
+     * 确保view是该流newView()返回的视图，并且buf[]之后没有被替换过
+     * 只读视图拿不到底层数组，无法直接比较，所以只接受记录下来的那个视图
+     */
+    final void checkView(ByteBuffer view) {
+        if (view == null) {
+            throw new NullPointerException();
+        }
+        if (view != this.view || viewBuf != buf) {
+            throw new IllegalArgumentException("view was not created by newView() of this stream");
+        }
+    }
+
+    /**
+     * 将view定位到buf[]中从pos开始最多n个字节，并将pos往后移动，不同步，也不检查view
+     */
+    final ByteBuffer slice(int n, ByteBuffer view) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n < 0");
+        }
+        int avail = count - pos;
+        if (n > avail) {
+            n = avail < 0 ? 0 : avail;
+        }
+        //先clear()让limit回到容量，position才能设置到任意位置
+        view.clear();
+        view.position(pos);
+        view.limit(pos + n);
+        pos += n;
+        return view;
+    }
+
     /**同步
      * 跳过n个长度的字节，
      */
@@ -0,0 +1,386 @@
+package com.zx.jdk.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 多写多读的管道
+ * PipedInputStream绑定了唯一的读线程和写线程(readSide、writeSide)，线程换了就会报"Read end dead"，无法在线程池中使用；
+ * 该类不记录线程，任意多个线程都可以同时通过getOutputStream()写入、通过getInputStream()读取
+ *
+ * 数据按 片(一次write()调用的byte[]片段) 存放在一个链表中，每次操作转移一整片，而不是像receive(int)那样一个字节一个字节地转移
+ * 和LinkedBlockingQueue一样使用两把锁：写入者只竞争putLock，读取者只竞争takeLock，读写之间不会互相阻塞，
+ * 缓冲区中的字节数用原子变量count维护
+ *
+ * 缓冲区满时的处理由Overflow策略决定：阻塞、丢弃本次写入、或者抛出异常
+ *
+ * 不超过容量的一次write()是原子的：BLOCK策略下会等到整片都放得下才放入，不会只写入一部分，也不会和其他写线程的数据交错；
+ * 超过容量的write()在BLOCK策略下会被拆成若干个不超过容量的片依次放入，片与片之间可能插入其他写线程的数据，
+ * 需要整条消息不被拆开的写入者，要保证每次写入不超过capacity()
+ */
+public class ConcurrentPipe {
+    //默认容量
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    /**
+     * 缓冲区满时写入者的处理策略
+     */
+    public enum Overflow {
+        //阻塞，直到有足够的空间
+        BLOCK,
+        //丢弃本次写入的全部数据，并计入dropped
+        DROP,
+        //抛出IOException
+        FAIL
+    }
+
+    //链表节点，保存一片数据
+    static class Node {
+        //数据片
+        final byte[] data;
+        //该片中下一个要读取的位置，只在持有takeLock时修改
+        int pos;
+        //下一个节点
+        Node next;
+
+        Node(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    //容量，缓冲区中最多保存的字节数
+    private final int capacity;
+    //缓冲区满时的处理策略
+    private final Overflow overflow;
+    //缓冲区中的字节数
+    private final AtomicInteger count = new AtomicInteger();
+    //因为DROP策略被丢弃的字节数
+    private final AtomicLong dropped = new AtomicLong();
+    //正在等待空间的写线程数，只在持有putLock时修改
+    private volatile int waitingWriters;
+
+    //链表头，head.next才是第一个有数据的节点，只在持有takeLock时修改
+    private Node head;
+    //链表尾，只在持有putLock时修改
+    private Node last;
+
+    //读取锁
+    private final ReentrantLock takeLock = new ReentrantLock();
+    //等待数据的条件
+    private final Condition notEmpty = takeLock.newCondition();
+    //写入锁
+    private final ReentrantLock putLock = new ReentrantLock();
+    //等待空间的条件
+    private final Condition notFull = putLock.newCondition();
+
+    //写入端关闭，读完剩余数据后返回-1
+    private volatile boolean closedByWriter = false;
+    //读取端关闭，写入时抛出异常
+    private volatile boolean closedByReader = false;
+
+    //读取端
+    private final Source source = new Source();
+    //写入端
+    private final Sink sink = new Sink();
+
+    //使用默认容量和阻塞策略创建管道
+    public ConcurrentPipe() {
+        this(DEFAULT_CAPACITY, Overflow.BLOCK);
+    }
+
+    //指定容量和满时策略创建管道
+    public ConcurrentPipe(int capacity, Overflow overflow) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Pipe capacity <= 0");
+        }
+        if (overflow == null) {
+            throw new NullPointerException();
+        }
+        this.capacity = capacity;
+        this.overflow = overflow;
+        head = last = new Node(null);
+    }
+
+    //返回读取端，所有读线程共享同一个对象
+    public InputStream getInputStream() {
+        return source;
+    }
+
+    //返回写入端，所有写线程共享同一个对象
+    public OutputStream getOutputStream() {
+        return sink;
+    }
+
+    //返回管道容量
+    public int capacity() {
+        return capacity;
+    }
+
+    //返回因为DROP策略被丢弃的字节总数
+    public long droppedBytes() {
+        return dropped.get();
+    }
+
+    //唤醒一个等待数据的读线程，只在写入方法中，不持有takeLock时调用
+    private void signalNotEmpty() {
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 唤醒所有等待空间的写线程，只在读取方法中，不持有putLock时调用
+     * 每个写线程需要的空间大小不同，只唤醒一个的话，它放不下时其他能放下的写线程也不会被唤醒
+     */
+    private void signalNotFull() {
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    /**
+     * 写入b[]数组从off开始的len个字节
+     * BLOCK策略下，超过容量的写入会被拆成多片，每片不超过容量，各片之间不保证原子性；
+     * DROP和FAIL策略下，一次写入要么整体进入管道，要么整体被丢弃/失败
+     */
+    void put(byte[] b, int off, int len) throws IOException {
+        if (overflow != Overflow.BLOCK && len > capacity) {
+            reject(len);
+            return;
+        }
+        while (len > 0) {
+            int n = Math.min(len, capacity);
+            if (!put0(b, off, n)) {
+                return;
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    //处理放不下的写入，DROP时记录丢弃的字节数，FAIL时抛出异常
+    private void reject(int len) throws IOException {
+        if (overflow == Overflow.DROP) {
+            dropped.addAndGet(len);
+        } else {
+            throw new IOException("Pipe full");
+        }
+    }
+
+    //写入一片数据，返回false表示该片被丢弃了
+    private boolean put0(byte[] b, int off, int n) throws IOException {
+        //先拷贝，不占用锁
+        byte[] data = new byte[n];
+        System.arraycopy(b, off, data, 0, n);
+        Node node = new Node(data);
+        int c;
+        final ReentrantLock putLock = this.putLock;
+        try {
+            putLock.lockInterruptibly();
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException();
+        }
+        try {
+            //先登记等待，再检查空间；读线程先减少count再检查waitingWriters，所以不会丢失唤醒
+            waitingWriters++;
+            try {
+                while (true) {
+                    if (closedByWriter || closedByReader) {
+                        throw new IOException("Pipe closed");
+                    }
+                    if (count.get() + n <= capacity) {
+                        break;
+                    }
+                    if (overflow != Overflow.BLOCK) {
+                        reject(n);
+                        return false;
+                    }
+                    try {
+                        notFull.await();
+                    } catch (InterruptedException ex) {
+                        throw new InterruptedIOException();
+                    }
+                }
+            } finally {
+                waitingWriters--;
+            }
+            last = last.next = node;
+            c = count.getAndAdd(n);
+            //还有空间，唤醒下一个写线程
+            if (c + n < capacity) {
+                notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        //写入前是空的，读线程可能在等待
+        if (c == 0) {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * 读取最多len个字节到b[]数组的off位置，至少有一个字节可读之前会阻塞；
+     * 一次调用会跨越多片，尽量读满len
+     */
+    int take(byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        int c;
+        final ReentrantLock takeLock = this.takeLock;
+        try {
+            takeLock.lockInterruptibly();
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException();
+        }
+        try {
+            while (count.get() == 0) {
+                if (closedByReader) {
+                    throw new IOException("Pipe closed");
+                }
+                if (closedByWriter) {
+                    //写入端关闭前写入的数据，在count上一定可见，再检查一次
+                    if (count.get() == 0) {
+                        return -1;
+                    }
+                    break;
+                }
+                try {
+                    notEmpty.await();
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+            }
+            int avail = count.get();
+            while (n < len && n < avail) {
+                Node first = head.next;
+                int cnt = Math.min(len - n, first.data.length - first.pos);
+                System.arraycopy(first.data, first.pos, b, off + n, cnt);
+                first.pos += cnt;
+                n += cnt;
+                //该片读完了，移出链表
+                if (first.pos == first.data.length) {
+                    head.next = head;
+                    head = first;
+                }
+            }
+            c = count.getAndAdd(-n);
+            //还有数据，唤醒下一个读线程
+            if (c - n > 0) {
+                notEmpty.signal();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        //有写线程在等待空间时才需要获取putLock去唤醒
+        if (waitingWriters > 0) {
+            signalNotFull();
+        }
+        return n;
+    }
+
+    //写入端关闭，唤醒所有读线程，让它们读完剩余数据后返回-1
+    void closeWriter() {
+        closedByWriter = true;
+        takeLock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            takeLock.unlock();
+        }
+        putLock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    //读取端关闭，唤醒所有等待的线程
+    void closeReader() {
+        closedByReader = true;
+        closeWriter();
+    }
+
+    /**
+     * 读取端，多个读线程共享
+     */
+    private class Source extends InputStream {
+        //read()使用的单字节缓冲区，读取端被多个读线程共享，所以每个线程一个
+        private final ThreadLocal<byte[]> single = ThreadLocal.withInitial(() -> new byte[1]);
+
+        //读取一个字节
+        public int read() throws IOException {
+            byte[] b = single.get();
+            return take(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        //读取最多len个字节
+        public int read(byte b[], int off, int len) throws IOException {
+            if (b == null) {
+                throw new NullPointerException();
+            } else if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return 0;
+            }
+            return take(b, off, len);
+        }
+
+        //返回管道中的字节数
+        public int available() throws IOException {
+            return closedByReader ? 0 : count.get();
+        }
+
+        //关闭读取端
+        public void close() throws IOException {
+            closeReader();
+        }
+    }
+
+    /**
+     * 写入端，多个写线程共享
+     */
+    private class Sink extends OutputStream {
+        //write(int)使用的单字节缓冲区，put0()会先拷贝一份再放入链表，所以每个写线程可以重复使用
+        private final ThreadLocal<byte[]> single = ThreadLocal.withInitial(() -> new byte[1]);
+
+        //写入一个字节
+        public void write(int b) throws IOException {
+            byte[] buf = single.get();
+            buf[0] = (byte) b;
+            put(buf, 0, 1);
+        }
+
+        //写入一片数据，不超过容量时是原子的
+        public void write(byte b[], int off, int len) throws IOException {
+            if (b == null) {
+                throw new NullPointerException();
+            } else if ((off < 0) || (off > b.length) || (len < 0) ||
+                    ((off + len) > b.length) || ((off + len) < 0)) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return;
+            }
+            put(b, off, len);
+        }
+
+        //关闭写入端，任意一个写线程调用后，整个写入端都关闭
+        public void close() throws IOException {
+            closeWriter();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.zx.jdk.io;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.SelectableChannel;
+/**
+ * 堆外缓冲输入流
+ * 和BufferedInputStream的区别是：缓冲区不是堆上的byte[]，而是一个直接内存(DirectByteBuffer)
+ * 数据通过通道(例如FileInputStream.getChannel())直接读到该缓冲区中，
+ * 文件通道读取到直接内存时，不需要像本地方法readBytes那样再经过一次临时缓冲区的拷贝；
+ * 同时，mark后扩充出来的大缓冲区也在堆外，不会增加GC的负担
+ *
+ * 该类中的 pos、count、markpos、mark()、reset()和BufferedInputStream中的含义相同，都是针对缓冲区的
+ */
+public class DirectBufferedInputStream extends InputStream {
+    //默认缓存大小
+    private static int DEFAULT_BUFFER_SIZE = 8192;
+    //堆外缓冲区的上限
+    private static int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    //读取数据的通道，为null时表示该流已经关闭
+    private volatile ReadableByteChannel channel;
+    //堆外缓冲区，limit始终保持为容量，只在通道读取和批量拷贝时临时设置position和limit
+    private ByteBuffer buf;
+    //最大允许读取的字节数，buf[0]-buf[count-1]是可以读取的字节
+    protected int count;
+    //下一个要读取的字节索引
+    protected int pos;
+    //最后一次调用mark()方法时pos的值；默认为-1
+    protected int markpos = -1;
+    //mark后最大可读字节数
+    protected int marklimit;
+
+    //使用文件输入流的通道创建该类，缓存大小为默认值
+    public DirectBufferedInputStream(FileInputStream in) {
+        this(in.getChannel(), DEFAULT_BUFFER_SIZE);
+    }
+
+    //使用文件输入流的通道创建该类，同时指定缓存大小
+    public DirectBufferedInputStream(FileInputStream in, int size) {
+        this(in.getChannel(), size);
+    }
+
+    //使用任意可读通道创建该类，同时指定缓存大小
+    public DirectBufferedInputStream(ReadableByteChannel channel, int size) {
+        if (channel == null) {
+            throw new NullPointerException();
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        this.channel = channel;
+        buf = ByteBuffer.allocateDirect(size);
+    }
+
+    //如果通道不为空，则返回该通道，否则抛出异常
+    private ReadableByteChannel getChannelIfOpen() throws IOException {
+        ReadableByteChannel ch = channel;
+        if (ch == null)
+            throw new IOException("Stream closed");
+        return ch;
+    }
+
+    /**
+     * 用更多的数据填充缓冲区，处理mark标记，逻辑和BufferedInputStream.fill()一致
+     * 不同的是扩充时分配的是新的堆外缓冲区，旧缓冲区随后由Cleaner释放
+     */
+    private void fill() throws IOException {
+        ReadableByteChannel ch = getChannelIfOpen();
+        ByteBuffer buffer = buf;
+        int capacity = buffer.capacity();
+        //没有mark，从头开始读取缓冲区
+        if (markpos < 0)
+            pos = 0;
+        //有mark，且缓冲区已经读完
+        else if (pos >= capacity)
+            //mark不在0位置，抛弃mark前的数据(compact()就是把position到limit的数据移动到0位置)
+            if (markpos > 0) {
+                int sz = pos - markpos;
+                buffer.limit(pos).position(markpos);
+                buffer.compact();
+                pos = sz;
+                markpos = 0;
+            //超出marklimit，mark失效
+            } else if (capacity >= marklimit) {
+                markpos = -1;
+                pos = 0;
+            //超出缓冲区上限
+            } else if (capacity >= MAX_BUFFER_SIZE) {
+                throw new OutOfMemoryError("Required array size too large");
+            //扩大缓冲区，让mark不失效
+            } else {
+                int nsz = (pos <= MAX_BUFFER_SIZE - pos) ?
+                        pos * 2 : MAX_BUFFER_SIZE;
+                if (nsz > marklimit)
+                    nsz = marklimit;
+                ByteBuffer nbuf = ByteBuffer.allocateDirect(nsz);
+                buffer.limit(pos).position(0);
+                nbuf.put(buffer);
+                buf = buffer = nbuf;
+            }
+        count = pos;
+        //将通道中的数据直接读取到堆外缓冲区的pos位置往后
+        buffer.limit(buffer.capacity()).position(pos);
+        int n = readChannel(ch, buffer);
+        if (n > 0)
+            count = n + pos;
+    }
+
+    /**
+     * 从通道读取到buffer中，buffer一定还有剩余空间
+     * 阻塞通道只有到达末尾时才返回-1，返回0并不表示结束，所以一直读到有数据或者到达末尾为止；
+     * 非阻塞的通道会一直返回0，和Channels.newInputStream()一样直接拒绝
+     */
+    private static int readChannel(ReadableByteChannel ch, ByteBuffer buffer) throws IOException {
+        if (ch instanceof SelectableChannel && !((SelectableChannel) ch).isBlocking())
+            throw new IllegalBlockingModeException();
+        int n;
+        while ((n = ch.read(buffer)) == 0)
+            Thread.yield();
+        return n;
+    }
+
+    //读取下一个字节，缓冲区没数据了就先补满缓冲区
+    public synchronized int read() throws IOException {
+        getChannelIfOpen();
+        if (pos >= count) {
+            fill();
+            if (pos >= count)
+                return -1;
+        }
+        return buf.get(pos++) & 0xff;
+    }
+
+    //从缓冲区读取数据到数组中，缓冲区为空时补充一次
+    private int read1(byte[] b, int off, int len) throws IOException {
+        int avail = count - pos;
+        if (avail <= 0) {
+            fill();
+            avail = count - pos;
+            if (avail <= 0) return -1;
+        }
+        int cnt = (avail < len) ? avail : len;
+        //从堆外缓冲区拷贝到b[]数组
+        ByteBuffer buffer = buf;
+        buffer.limit(pos + cnt).position(pos);
+        buffer.get(b, off, cnt);
+        //恢复limit，read()中的绝对位置读取依赖它
+        buffer.limit(buffer.capacity());
+        pos += cnt;
+        return cnt;
+    }
+
+    //读取指定长度的数据到b[]数组的off位置后
+    public synchronized int read(byte b[], int off, int len)
+            throws IOException
+    {
+        getChannelIfOpen();
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+
+        int n = 0;
+        for (;;) {
+            int nread = read1(b, off + n, len - n);
+            if (nread <= 0)
+                return (n == 0) ? nread : n;
+            n += nread;
+            //缓冲区读完后就返回，避免在通道上再阻塞一次
+            if (n >= len || pos >= count)
+                return n;
+        }
+    }
+
+    //跳过n长度的字节，只跳过缓冲区中的数据，缓冲区为空时补充一次
+    public synchronized long skip(long n) throws IOException {
+        getChannelIfOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        long avail = count - pos;
+        if (avail <= 0) {
+            fill();
+            avail = count - pos;
+            if (avail <= 0)
+                return 0;
+        }
+        long skipped = (avail < n) ? avail : n;
+        pos += skipped;
+        return skipped;
+    }
+
+    /**
+     * 返回缓冲区中的剩余可读字节数，加上通道中的剩余字节数
+     * 只有可定位的通道(例如FileChannel)才能得知剩余字节数，其他通道只返回缓冲区中的部分；超过Integer.MAX_VALUE时返回Integer.MAX_VALUE
+     */
+    public synchronized int available() throws IOException {
+        ReadableByteChannel ch = getChannelIfOpen();
+        long n = count - pos;
+        if (ch instanceof SeekableByteChannel) {
+            SeekableByteChannel sbc = (SeekableByteChannel) ch;
+            n += Math.max(0, sbc.size() - sbc.position());
+        }
+        return n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+    }
+
+    //标记当前位置
+    public synchronized void mark(int readlimit) {
+        marklimit = readlimit;
+        markpos = pos;
+    }
+
+    //回退到mark()位置
+    public synchronized void reset() throws IOException {
+        getChannelIfOpen();
+        if (markpos < 0)
+            throw new IOException("Resetting to invalid mark");
+        pos = markpos;
+    }
+
+    //支持mark()、reset()方法
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * 关闭该流和通道
+     * 不同步，这样读取线程阻塞在通道上时依然可以关闭；
+     * 堆外缓冲区不需要手动释放，它在不可达后由自身的Cleaner回收
+     */
+    public void close() throws IOException {
+        ReadableByteChannel ch = channel;
+        channel = null;
+        if (ch != null)
+            ch.close();
+    }
+}
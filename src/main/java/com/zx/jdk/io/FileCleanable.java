@@ -0,0 +1,136 @@
+package com.zx.jdk.io;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+/**
+ * 文件描述符的清理器
+ * 代替FileInputStream.finalize()：流不再是可终结的对象，创建时不需要注册Finalizer，回收时也不需要多活一个GC周期，
+ * 更不会因为只有一个Finalizer线程而积压
+ *
+ * 1. 清理器是FileDescriptor的虚引用，只保存底层的fd和handle，不引用FileDescriptor和流本身
+ * 2. 所有引用同一个FileDescriptor的流都不可达后，FileDescriptor才会变为虚可达，所以共享的文件描述符不会被提前关闭
+ * 3. FileDescriptor被回收后，虚引用被放入队列，由一个守护线程关闭底层的fd(Java 8没有java.lang.ref.Cleaner，这里是它的简化版)
+ * 4. 显式关闭时(最后一个流的release())会先注销清理器，之后就不会再关闭一次
+ *
+ * 清理器本身必须保持强可达，否则它会和FileDescriptor一起被回收，永远不会进入队列；所以所有未执行的清理器串在一个双向链表中
+ */
+final class FileCleanable extends PhantomReference<Object> {
+    //FileDescriptor被回收后，清理器进入该队列
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    //未执行的清理器链表的头，保持它们强可达
+    private static FileCleanable first = null;
+
+    //底层的文件描述值
+    private final int fd;
+    //底层的文件句柄
+    private final long handle;
+    //链表中的前后节点，只在持有FileCleanable.class锁时修改
+    private FileCleanable prev = null, next = null;
+
+    /**
+     * 关闭底层fd的方法，默认为本地方法cleanupClose0()
+     * 包内可见，测试时替换它，不需要真正的本地库就能验证不可达的流会被关闭
+     */
+    interface Closer {
+        void close(int fd, long handle) throws IOException;
+    }
+
+    //清理时使用的Closer
+    static volatile Closer closer = FileCleanable::cleanupClose0;
+
+    private FileCleanable(Object referent, int fd, long handle) {
+        super(referent, queue);
+        this.fd = fd;
+        this.handle = handle;
+    }
+
+    /**
+     * 为打开的文件描述符创建一个清理器，由FileDescriptor.registerCleanup()调用
+     */
+    static FileCleanable register(Object fdo, int fd, long handle) {
+        return add(new FileCleanable(fdo, fd, handle));
+    }
+
+    //加入链表
+    private static synchronized FileCleanable add(FileCleanable cl) {
+        if (first != null) {
+            cl.next = first;
+            first.prev = cl;
+        }
+        first = cl;
+        return cl;
+    }
+
+    //从链表中移除，返回false表示已经移除过了(已经执行或注销)
+    private static synchronized boolean remove(FileCleanable cl) {
+        if (cl.next == cl) {
+            return false;
+        }
+        if (first == cl) {
+            first = (cl.next != null) ? cl.next : cl.prev;
+        }
+        if (cl.next != null) {
+            cl.next.prev = cl.prev;
+        }
+        if (cl.prev != null) {
+            cl.prev.next = cl.next;
+        }
+        //指向自己表示已经移除
+        cl.next = cl;
+        cl.prev = cl;
+        return true;
+    }
+
+    /**
+     * 注销清理器，文件描述符被显式关闭时调用，之后不会再执行清理
+     */
+    void unregister() {
+        if (remove(this)) {
+            clear();
+        }
+    }
+
+    /**
+     * 关闭底层的fd，只执行一次
+     */
+    private void clean() {
+        if (!remove(this)) {
+            return;
+        }
+        if (fd != -1 || handle != -1) {
+            try {
+                closer.close(fd, handle);
+            } catch (IOException ignore) {
+                //和finalize()一样，回收时关闭失败没有人能处理，直接忽略
+            }
+        }
+    }
+
+    //本地方法，直接关闭fd或handle，不需要FileDescriptor对象
+    private static native void cleanupClose0(int fd, long handle) throws IOException;
+
+    /**
+     * 执行清理的守护线程，从队列中取出清理器并执行
+     */
+    private static final class CleanerThread extends Thread {
+        CleanerThread() {
+            super("FileDescriptor Cleaner");
+            setDaemon(true);
+            setPriority(Thread.MAX_PRIORITY - 2);
+        }
+
+        public void run() {
+            for (;;) {
+                try {
+                    ((FileCleanable) queue.remove()).clean();
+                } catch (Throwable ignore) {
+                    //清理线程不能退出，忽略中断和清理中的任何异常
+                }
+            }
+        }
+    }
+
+    static {
+        new CleanerThread().start();
+    }
+}
@@ -3,8 +3,10 @@ import java.io.Closeable;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.SyncFailedException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 /**
  * 文件描述类
  * 用来表示开放的 一个文件、一个socket或其它源等；
@@ -18,12 +20,18 @@ public final class FileDescriptor {
     //文件描述句柄（句柄：特殊的智能指针，可以是一个窗口、按钮、图标、文件等；是一个唯一整数，可以理解为ID）
     private long handle;
 
-    //存储一个实现Closeable接口的类(流)
-    private Closeable parent;
-    //存储其他一堆实现Closeable接口的类，如果parent不为空，然后又加入了一个实现Closeable的类，那parent也会被添加到otherParents中
-    private List<Closeable> otherParents;
-    //是否关闭
-    private boolean closed;
+    /**
+     * 引用计数，也就是引用该文件描述符的流的个数；CLOSED表示底层的fd已经关闭
+     * 每个流创建时acquire()一次，关闭时release()一次，最后一个release()关闭底层的fd
+     */
+    private volatile int refCount;
+    //refCount为该值时表示已经关闭
+    private static final int CLOSED = -1;
+    //原子地修改refCount，不需要锁
+    private static final AtomicIntegerFieldUpdater<FileDescriptor> refCountUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(FileDescriptor.class, "refCount");
+    //清理器，流打开文件后注册，该对象被回收时关闭底层的fd；显式关闭时注销
+    private volatile FileCleanable cleanup;
 
     /**
      * 创建一个 无效的 该类对象
@@ -112,84 +120,82 @@ public final class FileDescriptor {
         return desc;
     }
 
-    /*
-     * Package private methods to track referents.
-     * If multiple streams point to the same FileDescriptor, we cycle
-     * through the list of all referents and call close()
-     */
     /**
-     * 如果多个流引用同一个文件描述符，我们会通过循环列表中的所有引用来调用关闭方法
+     * 多个流可以引用同一个文件描述符，用引用计数记录引用它的流的个数，
+     * 最后一个流关闭时才关闭底层的fd，其他流关闭时只减少计数；
+     * 计数使用CAS修改，打开和关闭流都不需要获取该对象的锁，也不需要保存每个流的引用
      */
 
     /**
-     * 追加一个实现可关闭接口的类(流对象)到该对象，
-     * 每追加一次，也就是有一个流引用了该文件描述符
+     * 增加一次引用，每个流创建时调用一次
+     * 已经关闭的文件描述符不再增加计数，之后该流的release()也不会做任何事
      */
-    synchronized void attach(Closeable c) {
-        //如果parent还为空，将将它赋值给parent
-        if (parent == null) {
-            parent = c;
-        //如果otherParents集合还为空，创建出来，并将parent和它都放进去
-        } else if (otherParents == null) {
-            otherParents = new ArrayList<>();
-            otherParents.add(parent);
-            otherParents.add(c);
-        //如果parent和otherParents都不为空，就直接将它增加到otherParents中
-        } else {
-            otherParents.add(c);
+    void acquire() {
+        for (;;) {
+            int c = refCount;
+            if (c == CLOSED) {
+                return;
+            }
+            if (refCountUpdater.compareAndSet(this, c, c + 1)) {
+                return;
+            }
         }
     }
 
     /**
-     * 通过循环来调用close()方法关闭每个Closeable
-     *
-     * 先是关闭其他所有引用该类的流，再通过rerleaser关闭调用该方法的流
+     * 减少一次引用，每个流关闭时调用一次；减到0时由releaser关闭底层的fd
+     * releaser抛出的IOException直接抛出，由调用者把它和自己关闭时的其他异常合并
      */
-    synchronized void closeAll(Closeable releaser) throws IOException {
-        //如果是没关闭的（没调用过该方法）
-        if (!closed) {
-            //将closed置为true，表示调用过该方法了
-            closed = true;
-            //定义一个IO异常
-            IOException ioe = null;
-            //这个是JDK7中的写法，可以在try-catch结束后自动调用close()方法关闭该类，不过该类必须实现Closeable接口
-            try (Closeable c = releaser) {
-                //如果集合不为空，
-                if (otherParents != null) {
-                    //遍历集合
-                    for (Closeable referent : otherParents) {
-                        //调用每个元素的close()方法
-                        try {
-                            referent.close();
-                        } catch(IOException x) {
-                            //如果抛出异常，都将异常压制到ioe中
-                            //可以通过getSuppressed()方法获取这些异常
-                            //将这些异常都压制到一起是为了防止这些异常丢失，方便提取所有的异常
-                            if (ioe == null) {
-                                ioe = x;
-                            } else {
-                                ioe.addSuppressed(x);
-                            }
-                        }
-                    }
+    void release(Closeable releaser) throws IOException {
+        for (;;) {
+            int c = refCount;
+            if (c == CLOSED) {
+                return;
+            }
+            //c为0表示没有acquire()过，同样由该流关闭
+            int next = (c <= 1) ? CLOSED : c - 1;
+            if (refCountUpdater.compareAndSet(this, c, next)) {
+                if (next != CLOSED) {
+                    return;
                 }
-            } catch(IOException ex) {
-                /*
-                 * If releaser close() throws IOException
-                 * add other exceptions as suppressed.
-                 */
-                /**
-                 * 如果跑出了异常，就将ioe增加到这个异常中
-                 */
-                if (ioe != null)
-                    ex.addSuppressed(ioe);
-                //这句只是为了在finally中抛出异常，因为ex的作用域太小
-                ioe = ex;
-            } finally {
-                //如果发生了异常，抛出
-                if (ioe != null)
-                    throw ioe;
+                break;
             }
         }
+        //显式关闭了，不再需要清理器
+        FileCleanable cl = cleanup;
+        if (cl != null) {
+            cleanup = null;
+            cl.unregister();
+        }
+        releaser.close();
+    }
+
+    /**
+     * 返回该描述符打开的文件的fileKey(设备号和inode)，用来判断一个路径现在指向的是不是同一个文件
+     * 通过/proc/self/fd读取，它指向已经打开的文件本身，即使文件已经被重命名或删除；
+     * 没有/proc的系统(Linux以外)，或者描述符无效时返回null，表示无法判断
+     */
+    Object fileKey() {
+        if (fd < 0) {
+            return null;
+        }
+        try {
+            return Files.readAttributes(Paths.get("/proc/self/fd", Integer.toString(fd)),
+                    BasicFileAttributes.class).fileKey();
+        } catch (IOException | UnsupportedOperationException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * 为打开的文件注册清理器，由打开文件的流在open之后调用，此时该对象还没有发布给其他线程
+     * 通过文件描述符创建的流不注册，底层的fd由创建者负责关闭；标准流永远不会注册
+     */
+    void registerCleanup() {
+        FileCleanable cl = cleanup;
+        if (cl != null) {
+            cl.unregister();
+        }
+        cleanup = FileCleanable.register(this, fd, handle);
     }
 }
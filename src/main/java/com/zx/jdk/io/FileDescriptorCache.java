@@ -0,0 +1,471 @@
+package com.zx.jdk.io;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * 打开的文件描述符的缓存
+ * 反复读取同一批文件时，每次new FileInputStream(name)都要调用open0打开文件并创建FileDescriptor；
+ * 该缓存按路径保存已经打开的FileInputStream，之后再打开同一个文件只创建一个Reader，不再调用open0
+ *
+ * 1. 每个Reader是一个独立的流，有自己的读取位置，使用文件通道的定位读取(pread)，不会修改共享的文件描述符的位置，
+ *    所以同一个文件的多个Reader可以在不同的线程中同时读取
+ * 2. Reader通过FileInputStream(FileDescriptor)创建，会增加文件描述符的引用计数；缓存淘汰一个文件时只是减少一次引用，
+ *    还没关闭的Reader可以继续读取，最后一个Reader关闭时才关闭底层的fd
+ * 3. 缓存最多保存maxOpen个文件，超过时按LRU淘汰最久没有打开过的文件；还没关闭的Reader占用的fd不受该限制
+ * 4. 每次打开时都会先读取文件的属性，文件被替换(例如重命名覆盖)后fileKey(设备号和inode)会变化，
+ *    旧的描述符被作废，重新打开新的文件；一次stat比一次open加close要便宜得多
+ *
+ * 线程安全，所有对缓存的修改都在该对象的锁中进行，但打开和关闭文件(系统调用)都在锁外进行
+ */
+public class FileDescriptorCache implements Closeable {
+    //默认最多缓存的文件个数
+    private static final int DEFAULT_MAX_OPEN = 1024;
+
+    //最多缓存的文件个数
+    private final int maxOpen;
+    //打开文件和创建Reader的方法
+    private final Opener opener;
+    //路径到缓存项的映射，按访问顺序排列，第一个就是最久没有使用的
+    private final LinkedHashMap<String, Entry> entries;
+    //是否已经关闭
+    private boolean closed;
+
+    //命中次数
+    private final LongAdder hits = new LongAdder();
+    //未命中次数，包括文件被替换后重新打开
+    private final LongAdder misses = new LongAdder();
+    //超过maxOpen被淘汰的次数
+    private final LongAdder evictions = new LongAdder();
+    //文件被替换或删除而作废的次数
+    private final LongAdder invalidations = new LongAdder();
+
+    //创建缓存，最多缓存的文件个数为默认值
+    public FileDescriptorCache() {
+        this(DEFAULT_MAX_OPEN);
+    }
+
+    //创建缓存，最多缓存maxOpen个文件
+    public FileDescriptorCache(int maxOpen) {
+        this(maxOpen, FILE_OPENER);
+    }
+
+    //使用指定的Opener创建缓存，包内可见，只在测试中使用
+    FileDescriptorCache(int maxOpen, Opener opener) {
+        if (maxOpen <= 0) {
+            throw new IllegalArgumentException("maxOpen <= 0");
+        }
+        if (opener == null) {
+            throw new NullPointerException();
+        }
+        this.maxOpen = maxOpen;
+        this.opener = opener;
+        //不使用removeEldestEntry()淘汰，因为淘汰的文件要在锁外关闭
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 打开文件、在打开的文件上创建Reader的方法，默认为FILE_OPENER
+     * 包内可见，和FileCleanable.Closer一样，测试时替换它，不需要真正的本地库就能验证缓存的淘汰、作废和计数
+     */
+    interface Opener {
+        //打开文件，返回的对象就是缓存持有的那一次引用，淘汰或作废时关闭
+        Closeable open(String name) throws IOException;
+
+        //在open()打开的文件上创建一个新的Reader，Reader持有自己的一次引用
+        Reader newReader(Closeable opened) throws IOException;
+    }
+
+    //使用FileInputStream打开文件，Reader通过FileInputStream(FileDescriptor)共享文件描述符
+    private static final Opener FILE_OPENER = new Opener() {
+        public Closeable open(String name) throws IOException {
+            return new FileInputStream(name);
+        }
+
+        public Reader newReader(Closeable opened) throws IOException {
+            FileInputStream in = new FileInputStream(((FileInputStream) opened).getFD());
+            return new Reader(in, in.getChannel());
+        }
+    };
+
+    /**
+     * 缓存项，保存打开文件的流和打开时文件的标识
+     */
+    private static final class Entry {
+        //打开文件的流，缓存持有它的一次引用，被淘汰时关闭
+        final Closeable in;
+        //打开之前读取的文件标识，用来判断文件是否被替换
+        final Object fileKey;
+
+        Entry(Closeable in, Object fileKey) {
+            this.in = in;
+            this.fileKey = fileKey;
+        }
+    }
+
+    /**
+     * 返回文件的标识，优先使用fileKey(Unix上是设备号和inode)，
+     * 没有fileKey的系统上使用创建时间，只能识别出部分的替换
+     */
+    private static Object fileKey(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attrs.isDirectory()) {
+            throw new FileNotFoundException(path + " (Is a directory)");
+        }
+        Object key = attrs.fileKey();
+        return key != null ? key : attrs.creationTime();
+    }
+
+    /**
+     * 打开一个文件，返回它的Reader，从文件开头开始读取
+     * 文件已经在缓存中并且没有被替换时，不会再打开文件；否则打开文件并放入缓存，必要时淘汰最久没有使用的文件
+     * 和FileInputStream(String)一样，会使用安全管理器检查读权限，文件不存在或者不能读取时抛出FileNotFoundException
+     */
+    public Reader open(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        SecurityManager security = System.getSecurityManager();
+        if (security != null) {
+            security.checkRead(name);
+        }
+        Path path = Paths.get(name).toAbsolutePath().normalize();
+        String key = path.toString();
+        //必须在打开文件之前读取标识：如果在打开之后读取，打开的是旧文件而读到的是新文件的标识，
+        //缓存就会一直认为旧的描述符是有效的；先读取标识最多只会多作废一次
+        Object fileKey;
+        try {
+            fileKey = fileKey(path);
+        } catch (IOException ex) {
+            //文件已经被删除或者不能访问，作废缓存的描述符，由FileInputStream抛出和它一样的异常
+            invalidateKey(key);
+            fileKey = null;
+        }
+        List<Entry> stale = null;
+        synchronized (this) {
+            ensureOpen();
+            Entry e = entries.get(key);
+            if (e != null && fileKey != null && e.fileKey.equals(fileKey)) {
+                hits.increment();
+                //在锁中创建Reader，淘汰(关闭缓存的引用)也在锁中决定，所以Reader增加引用时底层的fd一定还没关闭
+                return opener.newReader(e.in);
+            }
+            if (e != null) {
+                entries.remove(key);
+                invalidations.increment();
+                stale = new ArrayList<>(1);
+                stale.add(e);
+            }
+            misses.increment();
+        }
+        closeAll(stale);
+        //在锁外打开文件，打开文件失败时抛出异常
+        Closeable in = opener.open(name);
+        Reader r;
+        try {
+            r = opener.newReader(in);
+        } catch (Throwable t) {
+            in.close();
+            throw t;
+        }
+        if (fileKey == null) {
+            //打开之前读取标识失败了，不知道打开的是哪个文件，不放入缓存
+            in.close();
+            return r;
+        }
+        synchronized (this) {
+            Entry old = closed ? null : entries.get(key);
+            if (closed || old != null) {
+                //缓存已经关闭，或者其他线程同时打开了同一个文件，不放入缓存，只减少这次打开的引用
+                stale = new ArrayList<>(1);
+                stale.add(new Entry(in, fileKey));
+            } else {
+                entries.put(key, new Entry(in, fileKey));
+                stale = evict();
+            }
+        }
+        closeAll(stale);
+        return r;
+    }
+
+    //超过maxOpen时，从最久没有使用的文件开始淘汰，返回被淘汰的缓存项，必须在锁中调用
+    private List<Entry> evict() {
+        int excess = entries.size() - maxOpen;
+        if (excess <= 0) {
+            return null;
+        }
+        List<Entry> removed = new ArrayList<>(excess);
+        Iterator<Entry> it = entries.values().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            removed.add(it.next());
+            it.remove();
+            evictions.increment();
+        }
+        return removed;
+    }
+
+    //作废路径为key的缓存项
+    private void invalidateKey(String key) throws IOException {
+        Entry e;
+        synchronized (this) {
+            e = entries.remove(key);
+            if (e == null) {
+                return;
+            }
+            invalidations.increment();
+        }
+        e.in.close();
+    }
+
+    /**
+     * 作废一个文件的缓存，下次打开时重新打开文件
+     * 已经返回的Reader不受影响，继续读取旧的描述符
+     */
+    public void invalidate(String name) throws IOException {
+        invalidateKey(Paths.get(name).toAbsolutePath().normalize().toString());
+    }
+
+    /**
+     * 作废所有文件的缓存
+     */
+    public void invalidateAll() throws IOException {
+        List<Entry> stale;
+        synchronized (this) {
+            stale = new ArrayList<>(entries.values());
+            entries.clear();
+            invalidations.add(stale.size());
+        }
+        closeAll(stale);
+    }
+
+    /**
+     * 关闭缓存项中的流，关闭时的异常和FileInputStream.close()一样，第一个异常作为主异常，其他的被压制到其中
+     */
+    private static void closeAll(List<Entry> stale) throws IOException {
+        if (stale == null) {
+            return;
+        }
+        IOException ioe = null;
+        for (Entry e : stale) {
+            try {
+                e.in.close();
+            } catch (IOException x) {
+                if (ioe == null) {
+                    ioe = x;
+                } else {
+                    ioe.addSuppressed(x);
+                }
+            }
+        }
+        if (ioe != null) {
+            throw ioe;
+        }
+    }
+
+    //确保缓存没有关闭，必须在锁中调用
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Cache closed");
+        }
+    }
+
+    //返回当前缓存的文件个数
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    //返回最多缓存的文件个数
+    public int maxOpen() {
+        return maxOpen;
+    }
+
+    //返回命中次数
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    //返回未命中次数
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    //返回因为超过maxOpen而被淘汰的次数
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    //返回因为文件被替换、删除或者显式作废的次数
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * 关闭缓存，释放缓存持有的所有描述符，之后不能再打开文件
+     * 已经返回的Reader不受影响，它们关闭时才关闭各自的fd
+     */
+    public void close() throws IOException {
+        List<Entry> stale;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stale = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        closeAll(stale);
+    }
+
+    /**
+     * 缓存的文件描述符上的一个独立的读取流
+     * 读取位置只保存在该对象中，每次读取都是文件通道的定位读取，所以多个Reader之间互不影响，
+     * 也不会修改共享的文件描述符的位置；mark()/reset()只是保存和恢复读取位置
+     *
+     * 和FileInputStream一样，单个Reader不是为多线程同时读取设计的，所以读取方法和mark()/reset()都不加锁，
+     * 只有close()可以在其他线程中调用
+     */
+    public static final class Reader extends InputStream {
+        //引用共享文件描述符的流，创建时增加引用计数，关闭时减少
+        private final Closeable in;
+        //该流自己的文件通道，只用来定位读取
+        private final FileChannel channel;
+        //下一个要读取的字节在文件中的位置
+        private long pos;
+        //mark()时的位置
+        private long mark;
+        //read()使用的单字节缓冲区
+        private final ByteBuffer single = ByteBuffer.allocate(1);
+        //关闭锁，和FileInputStream一样只在close()中使用，保证多个线程同时关闭时只减少一次引用计数
+        private final Object closeLock = new Object();
+        //是否关闭
+        private volatile boolean closed = false;
+
+        //in是该Reader持有的引用，channel是在它上面定位读取的通道，由Opener创建
+        Reader(Closeable in, FileChannel channel) {
+            this.in = in;
+            this.channel = channel;
+        }
+
+        //确保流没有关闭
+        private void ensureOpen() throws IOException {
+            if (closed)
+                throw new IOException("Stream closed");
+        }
+
+        //读取下一个字节，到达文件末尾返回-1
+        public int read() throws IOException {
+            ensureOpen();
+            single.clear();
+            int n = channel.read(single, pos);
+            if (n <= 0) {
+                return -1;
+            }
+            pos++;
+            return single.get(0) & 0xff;
+        }
+
+        //从当前位置读取最多len个字节到b[]数组的off位置
+        public int read(byte b[], int off, int len) throws IOException {
+            ensureOpen();
+            if (b == null) {
+                throw new NullPointerException();
+            } else if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return 0;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, len), pos);
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+
+        /**
+         * 从文件的position位置读取字节到dst中，不修改该流的读取位置
+         * 返回读取的字节数，position在文件末尾之后时返回-1
+         */
+        public int read(ByteBuffer dst, long position) throws IOException {
+            ensureOpen();
+            return channel.read(dst, position);
+        }
+
+        //跳过n个字节，只是移动读取位置，不会超过文件末尾，也不会跳到文件开头之前
+        public long skip(long n) throws IOException {
+            ensureOpen();
+            long k = Math.max(channel.size() - pos, 0);
+            if (n < k) {
+                k = n < 0 ? Math.max(n, -pos) : n;
+            }
+            pos += k;
+            return k;
+        }
+
+        //返回剩余可读字节数，超过Integer.MAX_VALUE时返回Integer.MAX_VALUE
+        public int available() throws IOException {
+            ensureOpen();
+            long n = channel.size() - pos;
+            return n <= 0 ? 0 : (n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n);
+        }
+
+        //返回当前读取位置在文件中的偏移量
+        public long position() {
+            return pos;
+        }
+
+        //设置读取位置，可以超过文件末尾，之后的读取返回-1
+        public Reader position(long newPosition) {
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Negative position");
+            }
+            pos = newPosition;
+            return this;
+        }
+
+        //返回文件的当前大小
+        public long size() throws IOException {
+            ensureOpen();
+            return channel.size();
+        }
+
+        //支持mark()、reset()
+        public boolean markSupported() {
+            return true;
+        }
+
+        //标记当前位置，readlimit没有意义，因为整个文件都可以回退
+        public void mark(int readlimit) {
+            mark = pos;
+        }
+
+        //回退到mark()位置
+        public void reset() throws IOException {
+            ensureOpen();
+            pos = mark;
+        }
+
+        /**
+         * 关闭该流，减少共享文件描述符的引用计数
+         * 缓存已经淘汰该文件并且这是最后一个引用时，才会关闭底层的fd
+         */
+        public void close() throws IOException {
+            synchronized (closeLock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            in.close();
+        }
+    }
+}
@@ -2,7 +2,18 @@ package com.zx.jdk.io;
 import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import sun.nio.ch.FileChannelImpl;
 /**
  * 文件输入流
@@ -21,8 +32,14 @@ public class FileInputStream extends InputStream
     //引用文件的路径，如果该流是通过文件描述符创建的，该属性则为空
     private final String path;
 
-    //用于读、写、映射、操作文件的通道
-    private FileChannel channel = null;
+    //用于读、写、映射、操作文件的通道；volatile保证close()能看到其他线程中刚创建的通道
+    private volatile FileChannel channel = null;
+
+    //用于异步读取的通道，第一次调用readAsync()时才打开
+    private volatile AsynchronousFileChannel asyncChannel = null;
+
+    //路径已经不再指向打开的文件(被重命名、替换或删除)，不能使用asyncChannel，readAsync()改用线程池
+    private volatile boolean asyncUnavailable = false;
 
     //关闭锁,该对象只在close()方法中使用，只是为了多个线程调用关闭方法的时候同步
     // 并将关闭方法和其他同步块区分开来,在其他同步块阻塞时，依然可以调用关闭方法
@@ -64,12 +81,14 @@ public class FileInputStream extends InputStream
         }
         //创建文件描述符
         fd = new FileDescriptor();
-        //在文件描述符对象中保存 该对象的引用
-        fd.attach(this);
+        //增加文件描述符的引用计数
+        fd.acquire();
         //将路径名 赋值给 path属性
         path = name;
         //打开该路径 文件或目录的 读取
         open(name);
+        //注册清理器，该流和所有引用该文件描述符的流都不可达时，关闭底层的fd
+        fd.registerCleanup();
     }
 
     /**
@@ -92,9 +111,9 @@ public class FileInputStream extends InputStream
         path = null;
 
         /**
-         * 文件描述符是可以被多个流引用的，所以它也要保存引用它的流的引用
+         * 文件描述符是可以被多个流引用的，增加它的引用计数，所有流都关闭后才会关闭底层的fd
          */
-        fd.attach(this);
+        fd.acquire();
     }
 
 
@@ -132,6 +151,114 @@ public class FileInputStream extends InputStream
         return readBytes(b, off, len);
     }
 
+    /**
+     * 异步地从文件的position位置读取字节到dst中，返回的CompletableFuture在读取完成时得到读取的字节数，
+     * 已经到达文件末尾时为-1；不会修改流的当前位置，也不会阻塞调用线程
+     *
+     * 通过路径创建的流，按路径再打开一个AsynchronousFileChannel，大量的读取可以同时进行，只占用它的少量线程；
+     * 它是另一个系统句柄，所以打开时会比较路径和当前描述符的fileKey，路径已经指向其他文件(流打开后文件被重命名、替换或删除)时，
+     * 和通过文件描述符创建的流一样，改为在一个固定大小的线程池中使用本流通道的定位读取，保证读到的和read()是同一个文件；
+     * 无法得知fileKey的系统上(见FileDescriptor.fileKey())不能做这个检查，这时异步读取的是打开异步通道时路径指向的文件
+     * 流关闭后，返回的CompletableFuture会以IOException异常完成
+     */
+    public CompletableFuture<Integer> readAsync(long position, ByteBuffer dst) {
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+        if (dst == null) {
+            throw new NullPointerException();
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IOException("Stream Closed"));
+            return future;
+        }
+        try {
+            AsynchronousFileChannel ach = getAsyncChannel();
+            if (ach != null) {
+                ach.read(dst, position, future, READ_COMPLETED);
+                return future;
+            }
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            return future;
+        }
+        AsyncReadPool.POOL.execute(() -> {
+            try {
+                //排队期间流可能已经关闭，不再创建通道；之后才关闭的话，getChannel()会关闭新建的通道，读取抛出异常
+                if (closed) {
+                    throw new IOException("Stream Closed");
+                }
+                future.complete(getChannel().read(dst, position));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 获取异步读取的通道，和getChannel()一样使用this作为锁
+     * close()使用的是closeLock，不能只靠检查closed来避免泄漏：先发布asyncChannel，再检查closed，
+     * close()则是先设置closed，再读取asyncChannel；两个都是volatile，所以至少有一方会看到对方的写入并关闭通道
+     * 通过文件描述符创建的流没有路径，或者路径已经指向其他文件时，返回null，readAsync()会改用线程池
+     */
+    private AsynchronousFileChannel getAsyncChannel() throws IOException {
+        if (path == null || asyncUnavailable) {
+            return null;
+        }
+        synchronized (this) {
+            AsynchronousFileChannel ch = asyncChannel;
+            if (ch == null) {
+                if (asyncUnavailable) {
+                    return null;
+                }
+                Path p = Paths.get(path);
+                ch = AsynchronousFileChannel.open(p, StandardOpenOption.READ);
+                //打开之后再比较，打开前后路径都指向描述符的文件，才能确定打开的是同一个文件
+                Object key = fd.fileKey();
+                if (key != null && !key.equals(
+                        Files.readAttributes(p, BasicFileAttributes.class).fileKey())) {
+                    ch.close();
+                    asyncUnavailable = true;
+                    return null;
+                }
+                asyncChannel = ch;
+            }
+            //打开的同时流被关闭了，close()可能没有看到这个通道，在这里关闭(重复关闭没有影响)
+            if (closed) {
+                ch.close();
+                throw new IOException("Stream Closed");
+            }
+            return ch;
+        }
+    }
+
+    //异步读取完成时，将结果交给对应的CompletableFuture，所有读取共享这一个对象
+    private static final CompletionHandler<Integer, CompletableFuture<Integer>> READ_COMPLETED =
+            new CompletionHandler<Integer, CompletableFuture<Integer>>() {
+                public void completed(Integer result, CompletableFuture<Integer> future) {
+                    future.complete(result);
+                }
+
+                public void failed(Throwable ex, CompletableFuture<Integer> future) {
+                    future.completeExceptionally(ex);
+                }
+            };
+
+    /**
+     * 通过文件描述符创建的流执行异步读取的线程池，第一次使用时才创建
+     * 线程数为CPU个数，都是守护线程，不会阻止虚拟机退出
+     */
+    private static class AsyncReadPool {
+        static final ExecutorService POOL = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), r -> {
+                    Thread t = new Thread(r, "FileInputStream-async-read");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
     //本地方法，跳过n个字节
     public native long skip(long n) throws IOException;
 
@@ -149,16 +276,46 @@ public class FileInputStream extends InputStream
             //将变量设为 已经关闭
             closed = true;
         }
+        //关闭通道时的异常不能跳过release()，否则引用计数不会减少，底层的fd永远不会关闭
+        //所有异常都保留下来：release()的异常作为主异常，其他异常被压制到其中
+        IOException ioe = null;
         //如果 操作文件的通道不为空，关闭
         if (channel != null) {
-            channel.close();
+            try {
+                channel.close();
+            } catch (IOException x) {
+                ioe = x;
+            }
         }
-        //先关闭引用该文件描述符的其他所有流，再关闭自己
-        fd.closeAll(new Closeable() {
-            public void close() throws IOException {
-                close0();
+        //关闭异步读取的通道，还没完成的异步读取会以AsynchronousCloseException异常完成
+        AsynchronousFileChannel ach = asyncChannel;
+        if (ach != null) {
+            try {
+                ach.close();
+            } catch (IOException x) {
+                if (ioe == null) {
+                    ioe = x;
+                } else {
+                    ioe.addSuppressed(x);
+                }
             }
-        });
+        }
+        //减少文件描述符的引用计数，最后一个关闭的流关闭底层的fd
+        try {
+            fd.release(new Closeable() {
+                public void close() throws IOException {
+                    close0();
+                }
+            });
+        } catch (IOException x) {
+            if (ioe != null) {
+                x.addSuppressed(ioe);
+            }
+            ioe = x;
+        }
+        if (ioe != null) {
+            throw ioe;
+        }
     }
 
    //返回该类中的 文件描述符
@@ -172,11 +329,20 @@ public class FileInputStream extends InputStream
    //获取该类中的 文件通道类，该类就在此处使用this作为锁，进行同步
     public FileChannel getChannel() {
         synchronized (this) {
-            if (channel == null) {
+            FileChannel fc = channel;
+            if (fc == null) {
                 //如果为空，就创建一个
-               channel = FileChannelImpl.open(fd, path, true, false, this);
+                channel = fc = FileChannelImpl.open(fd, path, true, false, this);
+                //和getAsyncChannel()一样先发布再检查closed：流已经关闭时，close()可能没有看到这个通道，在这里关闭
+                if (closed) {
+                    try {
+                        fc.close();
+                    } catch (IOException ioe) {
+                        throw new InternalError(ioe);
+                    }
+                }
             }
-            return channel;
+            return fc;
         }
     }
 
@@ -189,17 +355,4 @@ public class FileInputStream extends InputStream
         //设置属性的内存地址的偏移量
         initIDs();
     }
-
-    //GC前调用的销毁方法
-    protected void finalize() throws IOException {
-        //这个if成立，则表示没有更多的流引用这个文件描述符，则把该流关闭，该关闭方法中，同时会关闭所有引用该文件描述符的流
-        if ((fd != null) &&  (fd != FileDescriptor.in)) {
-            /* if fd is shared, the references in FileDescriptor
-             * will ensure that finalizer is only called when
-             * safe to do so. All references using the fd have
-             * become unreachable. We can call close()
-             */
-            close();
-        }
-    }
 }
@@ -0,0 +1,182 @@
+package com.zx.jdk.io;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+/**
+ * 内存映射文件输入流
+ * 通过FileInputStream.getChannel()返回的文件通道，将文件映射到内存中，
+ * read()、skip()、available()都直接操作映射区域，不再像FileInputStream那样每次都调用本地方法readBytes(系统调用)
+ *
+ * 一个MappedByteBuffer最多只能映射Integer.MAX_VALUE个字节，所以大文件会被分成若干块(chunk)按需映射，
+ * 当前读取位置所在的块被映射后就一直保留，直到读取位置移动到其他块
+ *
+ * 因为读取位置只是一个long，所以mark()/reset()都是O(1)的，并且没有readlimit的限制
+ *
+ * 和UnsynchronizedBufferedInputStream一样只支持单个线程读取，所有读取方法(包括mark()/reset())都不加锁，
+ * 只有close()可以在其他线程中调用
+ */
+public class MappedFileInputStream extends InputStream {
+    //默认的映射块大小 1G
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+    //被映射的文件输入流，关闭该流时一起关闭
+    private final FileInputStream in;
+    //文件通道
+    private final FileChannel channel;
+    //创建时文件的大小，映射范围不会超过该值
+    private final long size;
+    //每块映射的大小
+    private final int chunkSize;
+    //当前映射的块，为null时表示还没有映射
+    private MappedByteBuffer chunk;
+    //当前映射块在文件中的起始位置
+    private long chunkStart = -1;
+    //下一个要读取的字节在文件中的位置
+    private long pos;
+    //mark()时的位置，默认为创建时的位置，和ByteArrayInputStream一样
+    private long mark;
+    //是否关闭
+    private volatile boolean closed = false;
+
+    //通过文件名创建该流
+    public MappedFileInputStream(String name) throws IOException {
+        this(new FileInputStream(name), DEFAULT_CHUNK_SIZE);
+    }
+
+    //使用已经打开的文件输入流创建该流，从通道的当前位置开始读取
+    public MappedFileInputStream(FileInputStream in) throws IOException {
+        this(in, DEFAULT_CHUNK_SIZE);
+    }
+
+    //使用已经打开的文件输入流创建该流，同时指定每块映射的大小
+    public MappedFileInputStream(FileInputStream in, int chunkSize) throws IOException {
+        if (in == null) {
+            throw new NullPointerException();
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size <= 0");
+        }
+        this.in = in;
+        this.channel = in.getChannel();
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+        this.pos = channel.position();
+        this.mark = pos;
+    }
+
+    //确保流没有关闭
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("Stream closed");
+    }
+
+    /**
+     * 返回pos所在的映射块，并将它的position设置到pos对应的位置；
+     * 如果pos不在当前块中，则映射新的块(块的起始位置按chunkSize对齐)
+     */
+    private MappedByteBuffer chunkAt(long pos) throws IOException {
+        MappedByteBuffer b = chunk;
+        if (b == null || pos < chunkStart || pos >= chunkStart + b.capacity()) {
+            long start = pos - (pos % chunkSize);
+            long len = Math.min(chunkSize, size - start);
+            b = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+            chunk = b;
+            chunkStart = start;
+        }
+        b.position((int) (pos - chunkStart));
+        return b;
+    }
+
+    //读取下一个字节，到达文件末尾返回-1
+    public int read() throws IOException {
+        ensureOpen();
+        if (pos >= size) {
+            return -1;
+        }
+        int b = chunkAt(pos).get() & 0xff;
+        pos++;
+        return b;
+    }
+
+    //读取len长度的字节到b[]数组的off位置，跨块时分多次从映射区拷贝
+    public int read(byte b[], int off, int len) throws IOException {
+        ensureOpen();
+        if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+        if (pos >= size) {
+            return -1;
+        }
+        //最多读取到文件末尾
+        if (len > size - pos) {
+            len = (int) (size - pos);
+        }
+        int n = 0;
+        while (n < len) {
+            MappedByteBuffer buffer = chunkAt(pos);
+            int cnt = Math.min(len - n, buffer.remaining());
+            buffer.get(b, off + n, cnt);
+            pos += cnt;
+            n += cnt;
+        }
+        return n;
+    }
+
+    //跳过n个字节，只是移动读取位置，不会超过文件末尾；n为负数时不跳过，返回0，和InputStream.skip()的约定一致
+    public long skip(long n) throws IOException {
+        ensureOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        long k = Math.min(n, size - pos);
+        if (k <= 0) {
+            return 0;
+        }
+        pos += k;
+        return k;
+    }
+
+    //返回剩余可读字节数，超过Integer.MAX_VALUE时返回Integer.MAX_VALUE
+    public int available() throws IOException {
+        ensureOpen();
+        long n = size - pos;
+        return n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+    }
+
+    //返回当前读取位置在文件中的偏移量
+    public long position() {
+        return pos;
+    }
+
+    //支持mark()、reset()
+    public boolean markSupported() {
+        return true;
+    }
+
+    //标记当前位置，readlimit没有意义，因为整个文件都可以回退
+    public void mark(int readlimit) {
+        mark = pos;
+    }
+
+    //回退到mark()位置
+    public void reset() throws IOException {
+        ensureOpen();
+        pos = mark;
+    }
+
+    /**
+     * 关闭该流，同时关闭文件输入流(以及它的通道)
+     * 映射区域会在MappedByteBuffer不可达后，由GC回收时解除映射
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunk = null;
+        in.close();
+    }
+}
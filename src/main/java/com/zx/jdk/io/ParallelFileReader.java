@@ -0,0 +1,233 @@
+package com.zx.jdk.io;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+/**
+ * 并行分块读取文件
+ * 将FileInputStream(或FileDescriptor)打开的文件按对齐的字节范围切成若干块，
+ * 在线程池中使用文件通道的 定位读取(read(ByteBuffer, position)) 并发读取，不会修改通道的当前位置，多个线程之间也不需要同步
+ *
+ * 读取到的块按文件中的顺序(或者按读取完成的顺序)交给ChunkConsumer处理，ChunkConsumer始终在调用read()的线程中执行，不需要线程安全
+ * 同时在读取的块最多为window个，所以占用的内存最多是 window * chunkSize 字节；块的缓冲区会被复用，
+ * 所以ChunkConsumer不能在accept()返回后继续持有传入的ByteBuffer
+ *
+ * 使用FileDescriptor创建时，内部会创建一个引用该文件描述符的FileInputStream来获取通道，它会增加文件描述符的引用计数，
+ * 所以用完后必须调用close()，否则即使原来的流都关闭了，底层的fd也要等到GC时才会关闭；
+ * 使用FileInputStream或FileChannel创建时，close()什么都不做，流和通道仍由调用者关闭
+ */
+public class ParallelFileReader implements Closeable {
+    //对齐的单位，块大小和块的起始位置都是它的倍数
+    private static final int ALIGNMENT = 4096;
+    //默认块大小 1M
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * 块的处理者
+     */
+    public interface ChunkConsumer {
+        //处理一个块，position为块在文件中的起始位置，data中是该块的数据(position到limit)
+        void accept(long position, ByteBuffer data) throws IOException;
+    }
+
+    //文件通道
+    private final FileChannel channel;
+    //块大小
+    private final int chunkSize;
+    //使用FileDescriptor创建时内部打开的流，close()时关闭；其他情况为null
+    private final FileInputStream owned;
+
+    //使用文件输入流的通道创建，块大小为默认值
+    public ParallelFileReader(FileInputStream in) {
+        this(in.getChannel(), DEFAULT_CHUNK_SIZE);
+    }
+
+    //使用文件描述符创建，块大小为默认值，用完后需要调用close()
+    public ParallelFileReader(FileDescriptor fdObj) {
+        this(new FileInputStream(fdObj), DEFAULT_CHUNK_SIZE);
+    }
+
+    //使用文件通道创建，块大小会向上对齐到ALIGNMENT的倍数
+    public ParallelFileReader(FileChannel channel, int chunkSize) {
+        this(null, channel, chunkSize);
+    }
+
+    //使用内部打开的流创建，该对象持有这个流，close()时关闭它
+    private ParallelFileReader(FileInputStream owned, int chunkSize) {
+        this(owned, owned.getChannel(), chunkSize);
+    }
+
+    private ParallelFileReader(FileInputStream owned, FileChannel channel, int chunkSize) {
+        if (channel == null) {
+            throw new NullPointerException();
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size <= 0");
+        }
+        if (chunkSize > Integer.MAX_VALUE - ALIGNMENT) {
+            throw new IllegalArgumentException("Chunk size too large");
+        }
+        this.channel = channel;
+        this.chunkSize = (chunkSize + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        this.owned = owned;
+    }
+
+    /**
+     * 关闭使用FileDescriptor创建时内部打开的流，减少文件描述符的引用计数；
+     * 其他构造方法创建的对象不持有任何资源，close()什么都不做
+     */
+    public void close() throws IOException {
+        if (owned != null) {
+            owned.close();
+        }
+    }
+
+    //返回对齐后的块大小
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * 并行读取整个文件，ordered为true时按文件中的顺序交给consumer，否则按读取完成的顺序
+     * 同时在读取的块的个数为executor线程数的两倍左右，由window指定
+     * 任何一个块读取失败或者consumer抛出异常，都会停止提交新的块，并抛出该异常
+     */
+    public void read(ExecutorService executor, int window, boolean ordered, ChunkConsumer consumer)
+            throws IOException {
+        read(0, channel.size(), executor, window, ordered, consumer);
+    }
+
+    /**
+     * 并行读取文件中 [start, end) 范围内的数据
+     */
+    public void read(long start, long end, ExecutorService executor, int window, boolean ordered,
+                     ChunkConsumer consumer) throws IOException {
+        if (executor == null || consumer == null) {
+            throw new NullPointerException();
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("window <= 0");
+        }
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        //空闲的缓冲区，读完的块交给consumer后放回这里
+        ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+        //按顺序交付时，按提交顺序保存的任务
+        ArrayDeque<Future<Chunk>> inOrder = new ArrayDeque<>();
+        //按完成顺序交付时使用
+        CompletionService<Chunk> completion = new ExecutorCompletionService<>(executor);
+        //按完成顺序交付时，已经提交但还没有取出的任务，出现异常时用来取消它们
+        HashSet<Future<Chunk>> unordered = new HashSet<>();
+        int inFlight = 0;
+        //第一个块的结束位置对齐到ALIGNMENT，后面的块都从对齐的位置开始
+        long next = start;
+        try {
+            while (next < end || inFlight > 0) {
+                //窗口没满就继续提交
+                while (next < end && inFlight < window) {
+                    long chunkEnd = Math.min(end, (next / chunkSize + 1) * chunkSize);
+                    Callable<Chunk> task = new ReadTask(next, (int) (chunkEnd - next), pool);
+                    if (ordered) {
+                        inOrder.add(executor.submit(task));
+                    } else {
+                        unordered.add(completion.submit(task));
+                    }
+                    inFlight++;
+                    next = chunkEnd;
+                }
+                Future<Chunk> done = ordered ? inOrder.poll() : completion.take();
+                if (!ordered) {
+                    unordered.remove(done);
+                }
+                Chunk c = done.get();
+                inFlight--;
+                try {
+                    consumer.accept(c.position, c.data);
+                } finally {
+                    pool.offer(c.data);
+                }
+            }
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            //出现异常时，取消还没完成的块，不再占用共享线程池的线程和缓冲区
+            for (Future<Chunk> f : inOrder) {
+                f.cancel(false);
+            }
+            for (Future<Chunk> f : unordered) {
+                f.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 读取到的块
+     */
+    private static final class Chunk {
+        //在文件中的起始位置
+        final long position;
+        //数据，position为0，limit为读取到的字节数
+        final ByteBuffer data;
+
+        Chunk(long position, ByteBuffer data) {
+            this.position = position;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 读取一个块的任务
+     */
+    private final class ReadTask implements Callable<Chunk> {
+        private final long position;
+        private final int length;
+        private final ConcurrentLinkedQueue<ByteBuffer> pool;
+
+        ReadTask(long position, int length, ConcurrentLinkedQueue<ByteBuffer> pool) {
+            this.position = position;
+            this.length = length;
+            this.pool = pool;
+        }
+
+        public Chunk call() throws IOException {
+            ByteBuffer buffer = pool.poll();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(chunkSize);
+            }
+            buffer.clear();
+            buffer.limit(length);
+            //定位读取一次不一定读满，循环直到读满或到达文件末尾
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, pos);
+                if (n < 0) {
+                    break;
+                }
+                pos += n;
+            }
+            buffer.flip();
+            return new Chunk(position, buffer);
+        }
+    }
+}
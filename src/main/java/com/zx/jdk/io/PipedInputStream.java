@@ -55,6 +55,32 @@ public class PipedInputStream extends InputStream {
     //也就是每次调用read()方法，都会增加该索引
     protected int out = 0;
 
+    /**
+     * 自适应模式：写线程连续多次因为缓冲区满而阻塞时，将缓冲区扩大一倍(不超过maxPipeSize)；
+     * 缓冲区被连续多次读空，且期间写线程没有阻塞过时，将缓冲区缩小一半(不小于初始大小)
+     * 未开启自适应时，minPipeSize == maxPipeSize，缓冲区大小不会改变
+     */
+    //写线程连续阻塞多少次后扩容
+    private static final int GROW_THRESHOLD = 2;
+    //缓冲区连续被读空多少次(期间写线程没有阻塞)后缩容
+    private static final int SHRINK_THRESHOLD = 16;
+    //缓冲区的最小大小，也就是初始大小
+    private int minPipeSize;
+    //缓冲区的最大大小
+    private int maxPipeSize;
+    //写线程连续阻塞的次数，缓冲区在写线程没有阻塞的情况下被读空时清零
+    private int writerBlockStreak;
+    //缓冲区连续被读空(期间写线程没有阻塞)的次数
+    private int idleDrainStreak;
+    //上次缓冲区被读空后，写线程是否阻塞过
+    private boolean blockedSinceDrain;
+    //写线程因为缓冲区满而阻塞的总次数
+    private long writerBlockedCount;
+    //读线程因为缓冲区空而阻塞的总次数
+    private long readerBlockedCount;
+    //自适应模式下缓冲区扩容的总次数，扩容时写线程不会阻塞，不计入writerBlockedCount
+    private long growCount;
+
 
     //指定管道输出流，创建该对象
     public PipedInputStream(PipedOutputStream src) throws IOException {
@@ -82,12 +108,82 @@ public class PipedInputStream extends InputStream {
         initPipe(pipeSize);
     }
 
+    //指定管道输出流，并开启自适应模式，缓冲区大小在pipeSize和maxPipeSize之间变化
+    public PipedInputStream(PipedOutputStream src, int pipeSize, int maxPipeSize)
+            throws IOException {
+        this(pipeSize, maxPipeSize);
+        connect(src);
+    }
+
+    //暂不指定输出流，开启自适应模式，使用前必须连接
+    public PipedInputStream(int pipeSize, int maxPipeSize) {
+        initPipe(pipeSize);
+        if (maxPipeSize < pipeSize) {
+            throw new IllegalArgumentException("Max pipe size < pipe size");
+        }
+        this.maxPipeSize = maxPipeSize;
+    }
+
     //初始化管道，创建对应大小的环形缓冲区
     private void initPipe(int pipeSize) {
         if (pipeSize <= 0) {
             throw new IllegalArgumentException("Pipe Size <= 0");
         }
         buffer = new byte[pipeSize];
+        minPipeSize = maxPipeSize = pipeSize;
+    }
+
+    /**
+     * 扩容，只在缓冲区满(in == out)时调用
+     * 满的时候，数据是 out到末尾 + 0到in-1，按顺序拷贝到新缓冲区的开头，然后out=0，in=旧的长度
+     */
+    private void grow() {
+        int oldSize = buffer.length;
+        int newSize = (oldSize <= maxPipeSize - oldSize) ? oldSize * 2 : maxPipeSize;
+        byte[] nbuf = new byte[newSize];
+        System.arraycopy(buffer, out, nbuf, 0, oldSize - out);
+        System.arraycopy(buffer, 0, nbuf, oldSize - out, out);
+        buffer = nbuf;
+        out = 0;
+        in = oldSize;
+    }
+
+    /**
+     * 缓冲区被读空(in被置为-1)时调用，连续多次读空且写线程没有阻塞过，就缩容
+     * 此时缓冲区中没有数据，直接换一个小的数组即可
+     */
+    private void drained() {
+        if (blockedSinceDrain) {
+            blockedSinceDrain = false;
+            idleDrainStreak = 0;
+            return;
+        }
+        writerBlockStreak = 0;
+        if (buffer.length > minPipeSize && ++idleDrainStreak >= SHRINK_THRESHOLD) {
+            idleDrainStreak = 0;
+            buffer = new byte[Math.max(buffer.length / 2, minPipeSize)];
+            out = 0;
+        }
+    }
+
+    //返回当前缓冲区大小
+    public synchronized int getPipeSize() {
+        return buffer.length;
+    }
+
+    //返回写线程因为缓冲区满而阻塞的总次数
+    public synchronized long getWriterBlockedCount() {
+        return writerBlockedCount;
+    }
+
+    //返回读线程因为缓冲区空而阻塞的总次数
+    public synchronized long getReaderBlockedCount() {
+        return readerBlockedCount;
+    }
+
+    //返回自适应模式下缓冲区扩容的总次数
+    public synchronized long getGrowCount() {
+        return growCount;
     }
 
     //连接到指定管道输出流，如果该输入流已经连接了另一个管道，则抛出异常
@@ -202,10 +298,25 @@ public class PipedInputStream extends InputStream {
      * 该方法
      */
     private void awaitSpace() throws IOException {
+        //自适应模式下，缓冲区连续满了达到阈值就扩容，不再等待；扩容单独计数，不算作阻塞
+        blockedSinceDrain = true;
+        if (++writerBlockStreak >= GROW_THRESHOLD && buffer.length < maxPipeSize) {
+            writerBlockStreak = 0;
+            growCount++;
+            grow();
+            return;
+        }
+        //本次写入是否已经记录过阻塞，等待多次也只记录一次
+        boolean counted = false;
         //只要还满着，就一直循环
         while (in == out) {
             //确保此时是可输入状态
             checkStateForReceive();
+            //真正要等待时才记录阻塞次数
+            if (!counted) {
+                writerBlockedCount++;
+                counted = true;
+            }
             //唤醒所有线程
             notifyAll();
             try {
@@ -256,6 +367,8 @@ public class PipedInputStream extends InputStream {
          *   那么就可以理解为，一旦发生了2次这种异常，就抛出异常
          */
         int trials = 2;
+        //本次读取是否已经记录过阻塞，等待多次也只记录一次
+        boolean counted = false;
         /**
          * 如果下个输入位置索引 < 0，也就是说，没有数据可读 就一直循环、阻塞，不停的唤醒其他(写)线程，等待数据输入
          */
@@ -268,6 +381,11 @@ public class PipedInputStream extends InputStream {
             if ((writeSide != null) && (!writeSide.isAlive()) && (--trials < 0)) {
                 throw new IOException("Pipe broken");
             }
+            //真正要等待时才记录阻塞次数，写入已经关闭而直接返回-1的不算
+            if (!counted) {
+                readerBlockedCount++;
+                counted = true;
+            }
             //唤醒所有线程，因为in<0,可能是等待写入，所以唤醒所有线程，让写线程进行写操作
             notifyAll();
             try {
@@ -286,6 +404,7 @@ public class PipedInputStream extends InputStream {
         //如果此时out==in了，也就是out+1后等于in了，也就说明缓冲区已经没有数据可读了，就将in设为-1
         if (in == out) {
             in = -1;
+            drained();
         }
         //返回读取到的字节，int型
         return ret;
@@ -353,6 +472,7 @@ public class PipedInputStream extends InputStream {
             //此时的out==in，是out的结果，也就是说不是缓冲区满了，而是缓冲区没了，所以将in置为-1，表示缓冲区空了
             if (in == out) {
                 in = -1;
+                drained();
             }
         }
         //返回读取到的字节长度
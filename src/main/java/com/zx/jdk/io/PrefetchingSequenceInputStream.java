@@ -0,0 +1,313 @@
+package com.zx.jdk.io;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Enumeration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+/**
+ * 预取的有序输入流集合
+ * SequenceInputStream只有在当前流读到末尾时，才会在nextStream()中打开下一个流，打开文件的延迟直接落在read()上；
+ * 该类在读取当前流的同时，在后台线程池中提前打开后面的depth个流，并读取每个流的第一块数据(prefetchSize字节)
+ *
+ * 1. 对Enumeration的访问(nextElement()往往就是打开文件的地方)被串成一条链，一个接一个地在线程池中执行，保证顺序且不会并发访问Enumeration
+ * 2. 每个流的预读在打开之后执行，各个流之间可以并行
+ * 3. 预读占用的内存最多是 (depth + 1) * prefetchSize 字节：当前正在读取的流，加上后面提前打开的depth个流
+ * 4. close()会关闭当前流，以及所有已经打开或者之后才打开完成的预取流
+ * 5. 某个流打开(nextElement()抛出异常)或者预读失败时，读到该流的位置才抛出异常，之后的read()从下一个流继续，
+ *    和SequenceInputStream一样，失败不会影响后面的流
+ */
+public class PrefetchingSequenceInputStream extends com.zx.jdk.io.InputStream {
+    //默认预取的流的个数
+    private static final int DEFAULT_DEPTH = 2;
+    //默认每个流预读的字节数
+    private static final int DEFAULT_PREFETCH_SIZE = 8192;
+
+    /**
+     * 一个被打开并预读过的流
+     */
+    private static final class Part {
+        //打开的流
+        final InputStream in;
+        //预读的数据
+        final byte[] head;
+        //预读数据中下一个要读取的位置
+        int pos;
+        //预读到的字节数，-1表示预读时已经到达该流末尾
+        final int count;
+
+        Part(InputStream in, byte[] head, int count) {
+            this.in = in;
+            this.head = head;
+            this.count = count;
+        }
+    }
+
+    //保存输入流的集合，只在打开链中访问
+    private final Enumeration<? extends InputStream> e;
+    //执行打开和预读的线程池
+    private final Executor executor;
+    //每个流预读的字节数
+    private final int prefetchSize;
+    //打开链的最后一个环节，下一个打开任务接在它后面执行
+    private CompletableFuture<InputStream> lastOpen;
+    //已经提交的预取任务，按流的顺序排列；读取线程和close()都会访问，所以访问时要持有它的锁
+    private final ArrayDeque<CompletableFuture<Part>> pending = new ArrayDeque<>();
+    //当前正在读取的流，为null表示所有流都读完了
+    private Part current;
+    //是否关闭，关闭后还没开始的打开任务不再访问Enumeration
+    private volatile boolean closed = false;
+
+    //使用默认的预取个数和预读大小创建该流
+    public PrefetchingSequenceInputStream(Enumeration<? extends InputStream> e, Executor executor)
+            throws IOException {
+        this(e, executor, DEFAULT_DEPTH, DEFAULT_PREFETCH_SIZE);
+    }
+
+    /**
+     * 创建该流，depth为提前打开的流的个数，prefetchSize为每个流预读的字节数
+     * 创建时会等待第一个流打开完成
+     */
+    public PrefetchingSequenceInputStream(Enumeration<? extends InputStream> e, Executor executor,
+                                          int depth, int prefetchSize) throws IOException {
+        if (e == null || executor == null) {
+            throw new NullPointerException();
+        }
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth <= 0");
+        }
+        if (prefetchSize <= 0) {
+            throw new IllegalArgumentException("prefetchSize <= 0");
+        }
+        this.e = e;
+        this.executor = executor;
+        this.prefetchSize = prefetchSize;
+        this.lastOpen = CompletableFuture.completedFuture(null);
+        //当前流加上后面的depth个流
+        for (int i = 0; i <= depth; i++) {
+            schedule();
+        }
+        //第一个流打开失败时，关闭已经提交的预取任务打开的流，否则它们会一直打开着
+        try {
+            current = await(poll());
+        } catch (Throwable t) {
+            close();
+            throw t;
+        }
+    }
+
+    /**
+     * 提交一个预取任务：接在打开链后面取出下一个流，然后预读
+     * 集合中没有更多的流时，任务的结果为null
+     */
+    private void schedule() {
+        //上一个流打开失败不影响后面的流，只有预取任务本身的结果带着异常
+        CompletableFuture<InputStream> open = lastOpen.exceptionally(ex -> null)
+                .thenApplyAsync(prev -> nextElement(), executor);
+        lastOpen = open;
+        CompletableFuture<Part> f = open.thenApplyAsync(this::prefetch, executor);
+        synchronized (pending) {
+            pending.add(f);
+        }
+    }
+
+    //取出下一个预取任务，已经关闭时返回null
+    private CompletableFuture<Part> poll() {
+        synchronized (pending) {
+            return pending.poll();
+        }
+    }
+
+    //从集合中取出下一个流，没有更多的流或者已经关闭时返回null
+    private InputStream nextElement() {
+        if (closed || !e.hasMoreElements()) {
+            return null;
+        }
+        InputStream in = e.nextElement();
+        if (in == null)
+            throw new NullPointerException();
+        return in;
+    }
+
+    //预读流的第一块数据
+    private Part prefetch(InputStream in) {
+        if (in == null) {
+            return null;
+        }
+        byte[] head = new byte[prefetchSize];
+        try {
+            int n = 0;
+            //尽量读满预读缓冲区，流的末尾会让read()返回-1
+            while (n < head.length) {
+                int r = in.read(head, n, head.length - n);
+                if (r < 0) {
+                    break;
+                }
+                n += r;
+            }
+            //流在预读时就读完了，而且一个字节都没读到，标记为-1
+            Part p = new Part(in, head, (n == 0) ? -1 : n);
+            if (closed) {
+                in.close();
+            }
+            return p;
+        } catch (IOException ex) {
+            closeQuietly(in);
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    //等待预取任务完成，将线程池中的异常还原为IOException；f为null表示已经被close()取走了
+    private static Part await(CompletableFuture<Part> f) throws IOException {
+        if (f == null) {
+            throw new IOException("Stream closed");
+        }
+        try {
+            return f.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    //关闭流，忽略异常
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    //确保流没有关闭
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("Stream closed");
+    }
+
+    /**
+     * 关闭当前流，切换到下一个预取好的流，并再提交一个预取任务，保持预取个数不变
+     * 下一个流打开失败时抛出异常，当前流换成一个空的流，下次读取时直接跳到再下一个流
+     */
+    private void nextStream() throws IOException {
+        if (current != null) {
+            current.in.close();
+        }
+        Part next;
+        try {
+            next = await(poll());
+        } catch (Throwable t) {
+            current = failed();
+            if (!closed) {
+                schedule();
+            }
+            throw t;
+        }
+        current = next;
+        if (next != null) {
+            schedule();
+        }
+    }
+
+    //代替打开失败的流，没有数据，读取时直接切换到下一个流
+    private static Part failed() {
+        return new Part(new ByteArrayInputStream(new byte[0]), new byte[0], -1);
+    }
+
+    //返回剩余可读字节数，也就是当前流中预读的剩余字节数加上流自己的available()
+    public int available() throws IOException {
+        ensureOpen();
+        if (current == null) {
+            return 0;
+        }
+        int n = Math.max(current.count - current.pos, 0);
+        int avail = current.in.available();
+        return n > (Integer.MAX_VALUE - avail)
+                ? Integer.MAX_VALUE
+                : n + avail;
+    }
+
+    //读取下一个字节，先读预读的数据，再读流本身，当前流读完就切换到下一个流
+    public int read() throws IOException {
+        ensureOpen();
+        while (current != null) {
+            Part p = current;
+            if (p.pos < p.count) {
+                return p.head[p.pos++] & 0xff;
+            }
+            if (p.count >= 0) {
+                int c = p.in.read();
+                if (c != -1) {
+                    return c;
+                }
+            }
+            nextStream();
+        }
+        return -1;
+    }
+
+    //读取最多len个字节，和SequenceInputStream一样，当前流读到数据就返回
+    public int read(byte b[], int off, int len) throws IOException {
+        ensureOpen();
+        if (current == null) {
+            return -1;
+        } else if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+        do {
+            Part p = current;
+            //先读预读的数据
+            if (p.pos < p.count) {
+                int n = Math.min(p.count - p.pos, len);
+                System.arraycopy(p.head, p.pos, b, off, n);
+                p.pos += n;
+                return n;
+            }
+            if (p.count >= 0) {
+                int n = p.in.read(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+            }
+            nextStream();
+        } while (current != null);
+        return -1;
+    }
+
+    /**
+     * 关闭当前流和所有预取的流
+     * 还没完成的预取任务，会在完成后关闭它打开的流；还没开始的打开任务，不会再从集合中取出流
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        CompletableFuture<Part> f;
+        while ((f = poll()) != null) {
+            f.thenAccept(p -> {
+                if (p != null) {
+                    closeQuietly(p.in);
+                }
+            });
+        }
+        Part p = current;
+        current = null;
+        if (p != null) {
+            p.in.close();
+        }
+    }
+}
@@ -7,14 +7,34 @@ import java.io.IOException;
  * 例如这些字节数据中有一个标识符，规定每次读取只能读取标识符那么多的数据，但是不确定标识符之间的数据长度；
  * 就可以从该流中先读取出若干字节，如果读到了标识符，就将标识符后的字节回推回去；如果没有，就继续读取，直到读取到标识符；
  * 所以该流可以拿来处理TCP连接的粘包问题
+ *
+ * 除了回推，还可以用peek()直接查看后面的字节而不读取它们，不需要先read()再unread()，省去两次拷贝；
+ * 缓冲区放不下回推或查看的字节时会自动扩大，不会再抛出"Push back buffer is full"；
+ * 也支持mark()/reset()，标记后读取的字节都保留在缓冲区中，和BufferedInputStream一样受marklimit限制
+ *
+ * 注意：子类可见的protected字段pos的含义和java.io.PushbackInputStream不同，
+ * 缓冲区为空不再是 pos == buf.length，而是 pos == count，未读取的字节是buf[pos]到buf[count-1]，count不一定等于buf.length；
+ * 而且缓冲区会被扩大和移动，buf、pos、count、markpos在任何读取、回推、查看之后都可能改变
  */
 public class PushbackInputStream extends FilterInputStream {
-    //缓冲区
+    //缓冲区的最大长度，一些虚拟机会在数组中保留头信息
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    //缓冲区，buf[pos]到buf[count-1]是还未读取的字节(回推的字节和peek()预读的字节)
     protected byte[] buf;
 
-    //缓冲区中 下个要读取的字节的位置，当pos==buf.length时，表示缓冲区为空；当pos==0时，表示缓冲区满了
+    //缓冲区中 下个要读取的字节的位置，当pos==count时，表示缓冲区为空；pos前面的空间用来存放回推的字节
     protected int pos;
 
+    //缓冲区中有效字节的结束位置，peek()预读的字节追加到这里
+    protected int count;
+
+    //调用mark()时pos的值，没有标记时为-1；标记后读取的字节(buf[markpos]到buf[pos-1])都保留在缓冲区中
+    protected int markpos = -1;
+
+    //mark后最大可读字节数，超过后再读取新的字节时，标记会失效
+    protected int marklimit;
+
     //确保流不是关闭的，如果关闭，抛出异常
     private void ensureOpen() throws IOException {
         if (in == null)
@@ -30,8 +50,9 @@ public class PushbackInputStream extends FilterInputStream {
             throw new IllegalArgumentException("size <= 0");
         }
         this.buf = new byte[size];
-        //默认缓冲区为空的
+        //默认缓冲区为空的，size个位置都可以用来回推，超过时缓冲区会扩大
         this.pos = size;
+        this.count = size;
     }
 
     //创建该流，传入被包装流，缓冲区大小使用默认的1
@@ -46,12 +67,19 @@ public class PushbackInputStream extends FilterInputStream {
         //检查 被包装流不为空/未关闭
         ensureOpen();
         //并且缓冲区中还有数据
-        if (pos < buf.length) {
+        if (pos < count) {
             //返回缓冲区中的下一字节
             return buf[pos++] & 0xff;
         }
-        //如果缓冲区没数据了，直接调用被包装流 从流中读取
-        return super.read();
+        //如果缓冲区没数据了，并且没有标记，直接调用被包装流 从流中读取
+        if (markpos < 0) {
+            return super.read();
+        }
+        //标记了，读取的字节要保留在缓冲区中，先读到缓冲区再返回
+        if (fill(1) < 0) {
+            return -1;
+        }
+        return buf[pos++] & 0xff;
     }
 
     /**
@@ -71,7 +99,7 @@ public class PushbackInputStream extends FilterInputStream {
             return 0;
         }
         //该方法真正要读取的字节数 ，先让它等于 缓冲区剩余可读字节数
-        int avail = buf.length - pos;
+        int avail = count - pos;
         //如果有 剩余可读的
         if (avail > 0) {
             //如果 要读取的长度小于 剩余可读的
@@ -88,6 +116,16 @@ public class PushbackInputStream extends FilterInputStream {
             //将要读取的长度 - 真正读取了的长度 ，也就是剩下的还要读取的长度
             len -= avail;
         }
+        //如果还有要读取的，并且标记了，先读到缓冲区(保留下来)再拷贝
+        if (len > 0 && markpos >= 0) {
+            if (fill(len) < 0) {
+                return avail == 0 ? -1 : avail;
+            }
+            int n = Math.min(len, count - pos);
+            System.arraycopy(buf, pos, b, off, n);
+            pos += n;
+            return avail + n;
+        }
         //如果还有要读取的
         if (len > 0) {
             //使用 被包装流的 方法读取相应长度的字节
@@ -113,9 +151,11 @@ public class PushbackInputStream extends FilterInputStream {
     public void unread(int b) throws IOException {
         //确保流打开
         ensureOpen();
-        //如果pos==0，表示缓冲区是满的
+        //回推改变了流的内容，标记失效
+        markpos = -1;
+        //如果pos==0，表示缓冲区前面没有空间了，扩大缓冲区
         if (pos == 0) {
-            throw new IOException("Push back buffer is full");
+            makeRoom(1);
         }
         //此处先将pos-1，并且将字节存入缓冲区的pos-1后的位置，也就完成了回推
         //下次读取将从pos读取，读取到的也就是这个回推的字节了
@@ -132,12 +172,16 @@ public class PushbackInputStream extends FilterInputStream {
     public void unread(byte[] b, int off, int len) throws IOException {
         //确保流打开
         ensureOpen();
-        //如果 要回推的字节长度 大于 缓冲区下个要读取的字节位置的索引；那么是无法回推的
-        //因为所谓的回推就是将数据复制会缓冲区，并且是不能覆盖当前还未读取的数据的(也就是buf[pos]到buf[buf.length -1])
-        //所以，最多可回推的字节数就是pos的长度
-        //所以调用该方法时要小心，len不能过长
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        //回推改变了流的内容，标记失效
+        markpos = -1;
+        //如果 要回推的字节长度 大于 缓冲区下个要读取的字节位置的索引；那么前面的空间放不下
+        //因为所谓的回推就是将数据复制会缓冲区，并且是不能覆盖当前还未读取的数据的(也就是buf[pos]到buf[count -1])
+        //所以，先把未读取的数据移到缓冲区末尾，还不够就扩大缓冲区
         if (len > pos) {
-            throw new IOException("Push back buffer is full");
+            makeRoom(len);
         }
         //将pos 减去 对应的值，然后将 要回推的数据拷贝到缓冲区，表示回推完成
         pos -= len;
@@ -152,12 +196,115 @@ public class PushbackInputStream extends FilterInputStream {
         unread(b, 0, b.length);
     }
 
+    /**
+     * 查看后面第n个字节(0表示下一次read()将返回的字节)，但不读取它
+     * 缓冲区中不够时，从被包装流中读取到缓冲区，所以可能会阻塞；流在第n个字节之前结束时返回-1
+     */
+    public int peek(int n) throws IOException {
+        ensureOpen();
+        if (n < 0) {
+            throw new IllegalArgumentException("n < 0");
+        }
+        //缓冲区中已经有了，不需要读取
+        while (count - pos <= n) {
+            if (fill(n + 1 - (count - pos)) < 0) {
+                return -1;
+            }
+        }
+        return buf[pos + n] & 0xff;
+    }
+
+    /**
+     * 将后面的len个字节拷贝到b[]数组的off位置，但不读取它们，之后的read()仍然从这些字节开始
+     * 会一直从被包装流中读取，直到缓冲区中有len个字节或者流结束，返回拷贝的字节数；流已经结束时返回-1
+     */
+    public int peek(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+        while (count - pos < len) {
+            if (fill(len - (count - pos)) < 0) {
+                break;
+            }
+        }
+        int n = Math.min(len, count - pos);
+        if (n == 0) {
+            return -1;
+        }
+        System.arraycopy(buf, pos, b, off, n);
+        return n;
+    }
+
+    /**
+     * 从被包装流中读取一次，追加到缓冲区的count位置，返回读取的字节数，流结束时返回-1
+     * 读取前确保count后面至少有n个字节的空间：
+     * 1. 标记后读取的字节超过了marklimit，标记失效，不再保留它们
+     * 2. 需要保留的字节(有标记时从markpos开始，否则从pos开始)前面有空间时，把它们移到缓冲区开头
+     * 3. 还不够就扩大缓冲区，至少扩大一倍
+     */
+    private int fill(int n) throws IOException {
+        if (markpos >= 0 && pos - markpos > marklimit) {
+            markpos = -1;
+        }
+        int keep = markpos >= 0 ? markpos : pos;
+        if (buf.length - count < n) {
+            int used = count - keep;
+            byte[] nbuf = buf;
+            if (buf.length - used < n) {
+                nbuf = new byte[newLength(used, n)];
+            }
+            System.arraycopy(buf, keep, nbuf, 0, used);
+            buf = nbuf;
+            pos -= keep;
+            count -= keep;
+            if (markpos >= 0) {
+                markpos -= keep;
+            }
+        }
+        int r = in.read(buf, count, buf.length - count);
+        if (r > 0) {
+            count += r;
+        }
+        return r;
+    }
+
+    /**
+     * 确保pos前面至少有n个字节的空间用来回推：把未读取的字节移到缓冲区末尾，还不够就扩大缓冲区，至少扩大一倍
+     * 调用前标记已经失效，所以只需要保留未读取的字节
+     */
+    private void makeRoom(int n) {
+        int used = count - pos;
+        byte[] nbuf = buf;
+        if (buf.length - used < n) {
+            nbuf = new byte[newLength(used, n)];
+        }
+        int npos = nbuf.length - used;
+        System.arraycopy(buf, pos, nbuf, npos, used);
+        buf = nbuf;
+        pos = npos;
+        count = nbuf.length;
+    }
+
+    //扩大后的缓冲区长度，要放下used个已有的字节和n个新的字节
+    private int newLength(int used, int n) {
+        long min = (long) used + n;
+        if (min > MAX_BUFFER_SIZE) {
+            throw new OutOfMemoryError("Required array size too large");
+        }
+        return (int) Math.min(Math.max((long) buf.length << 1, min), MAX_BUFFER_SIZE);
+    }
+
    //返回剩余可用字节数
     public int available() throws IOException {
         //确保流是打开的
         ensureOpen();
         //缓冲区剩余可读字节大小
-        int n = buf.length - pos;
+        int n = count - pos;
         //被包装流的 剩余可读大小
         int avail = super.available();
         //返回 缓冲区可读字节 + 流中可读字节数 = 剩余可读字节数，当然，不允许其超过Integer。MAX_VALUE
@@ -175,7 +322,7 @@ public class PushbackInputStream extends FilterInputStream {
             return 0;
         }
         //真正要跳过的字节数，默认为 缓冲区剩余可读字节数
-        long pskip = buf.length - pos;
+        long pskip = count - pos;
         //如果>0
         if (pskip > 0) {
             //如果 n 未超过缓冲区剩余可读字节数,那就跳过 n
@@ -187,6 +334,16 @@ public class PushbackInputStream extends FilterInputStream {
             // 剩余要跳过的字节数
             n -= pskip;
         }
+        //如果 还有字节数没跳，并且标记了，跳过的字节也要保留在缓冲区中，读到缓冲区再跳过
+        while (n > 0 && markpos >= 0) {
+            if (pos == count && fill((int) Math.min(n, buf.length)) < 0) {
+                return pskip;
+            }
+            long k = Math.min(n, count - pos);
+            pos += (int) k;
+            pskip += k;
+            n -= k;
+        }
         //如果 还有字节数没跳， 调用 被包装流 自己的方法，跳过
         if (n > 0) {
             pskip += super.skip(n);
@@ -195,18 +352,30 @@ public class PushbackInputStream extends FilterInputStream {
         return pskip;
     }
 
-    //是否支持mark，不支持
+    //是否支持mark，支持
     public boolean markSupported() {
-        return false;
+        return true;
     }
 
-    //标记方法，该流不支持
+    /**
+     * 标记当前位置，之后最多读取readlimit个字节，reset()都能回到这里
+     * 回推(unread())会使标记失效
+     */
     public synchronized void mark(int readlimit) {
+        marklimit = readlimit;
+        markpos = pos;
     }
 
-    //回滚方法，该流不支持
+    /**
+     * 回滚到标记的位置，标记仍然有效，可以多次回滚
+     * 没有标记，或者标记已经失效时，抛出异常
+     */
     public synchronized void reset() throws IOException {
-        throw new IOException("mark/reset not supported");
+        ensureOpen();
+        if (markpos < 0) {
+            throw new IOException("Resetting to invalid mark");
+        }
+        pos = markpos;
     }
 
     //关闭流，调用 被包装流自己的close()方法，然后将其设为null
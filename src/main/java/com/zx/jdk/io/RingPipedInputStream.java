@@ -0,0 +1,263 @@
+package com.zx.jdk.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 环形缓冲区管道输入流
+ * 和PipedInputStream一样，需要和一个RingPipedOutputStream连接，并且在两个线程中使用
+ *
+ * 和PipedInputStream的区别：
+ * 1. 缓冲区大小是2的幂，使用 序号 & mask 计算下标，不需要in=-1这种特殊值来区分满和空
+ * 2. 读序号(readSeq)和写序号(writeSeq)都是只增不减的volatile long，
+ *    读线程只修改readSeq，写线程只修改writeSeq，所以一个读线程和一个写线程之间不需要共享锁
+ * 3. 没有数据/没有空间时，使用LockSupport.park()挂起自己，由对方在修改序号后unpark()唤醒，
+ *    而不是notifyAll() + wait(1000)轮询
+ *
+ * 该类只支持 单个读线程 和 单个写线程；写线程结束时必须关闭输出流，否则读线程会一直等待
+ */
+public class RingPipedInputStream extends InputStream {
+    //默认管道大小
+    private static final int DEFAULT_PIPE_SIZE = 1024;
+
+    //环形缓冲区，长度是2的幂
+    private final byte[] buffer;
+    //下标掩码，等于buffer.length - 1
+    private final int mask;
+
+    //已经读取的字节总数，只由读线程修改
+    private volatile long readSeq;
+    //已经写入的字节总数，只由写线程修改；writeSeq - readSeq 就是缓冲区中可读的字节数
+    private volatile long writeSeq;
+
+    //正在等待数据的读线程，为null时表示读线程没有挂起
+    private volatile Thread waitingReader;
+    //正在等待空间的写线程，为null时表示写线程没有挂起
+    private volatile Thread waitingWriter;
+
+    //写入者关闭
+    volatile boolean closedByWriter = false;
+    //读取者关闭
+    volatile boolean closedByReader = false;
+    //连接了的
+    volatile boolean connected = false;
+
+    //指定输出流，创建该对象
+    public RingPipedInputStream(RingPipedOutputStream src) throws IOException {
+        this(src, DEFAULT_PIPE_SIZE);
+    }
+
+    //指定输出流和缓冲区大小创建该对象，缓冲区大小会向上取整为2的幂
+    public RingPipedInputStream(RingPipedOutputStream src, int pipeSize) throws IOException {
+        this(pipeSize);
+        connect(src);
+    }
+
+    //暂不指定输出流创建该对象，使用默认的缓冲区大小
+    public RingPipedInputStream() {
+        this(DEFAULT_PIPE_SIZE);
+    }
+
+    //暂不指定输出流创建对象，缓冲区大小会向上取整为2的幂
+    public RingPipedInputStream(int pipeSize) {
+        if (pipeSize <= 0) {
+            throw new IllegalArgumentException("Pipe Size <= 0");
+        }
+        if (pipeSize > (1 << 30)) {
+            throw new IllegalArgumentException("Pipe Size > 2^30");
+        }
+        //向上取整为2的幂
+        int size = pipeSize == 1 ? 1 : Integer.highestOneBit(pipeSize - 1) << 1;
+        buffer = new byte[size];
+        mask = size - 1;
+    }
+
+    //连接到指定输出流
+    public void connect(RingPipedOutputStream src) throws IOException {
+        src.connect(this);
+    }
+
+    /**
+     * 检查该流的接收状态，判断此时能否接收新的数据
+     */
+    private void checkStateForReceive() throws IOException {
+        if (!connected) {
+            throw new IOException("Pipe not connected");
+        } else if (closedByWriter || closedByReader) {
+            throw new IOException("Pipe closed");
+        }
+    }
+
+    //如果线程被中断了，抛出中断IO异常
+    private static void checkInterrupt() throws InterruptedIOException {
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    //唤醒挂起的读线程(如果有)
+    private void signalReader() {
+        Thread t = waitingReader;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    //唤醒挂起的写线程(如果有)
+    private void signalWriter() {
+        Thread t = waitingWriter;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * 写线程等待，直到缓冲区有空间
+     * 先登记waitingWriter，再重新检查readSeq，因为两者都是volatile，
+     * 读线程 修改readSeq后再读取waitingWriter 时一定能看到登记，所以不会丢失唤醒
+     */
+    private void awaitSpace() throws IOException {
+        Thread current = Thread.currentThread();
+        waitingWriter = current;
+        try {
+            while (writeSeq - readSeq == buffer.length) {
+                checkStateForReceive();
+                LockSupport.park(this);
+                checkInterrupt();
+            }
+        } finally {
+            waitingWriter = null;
+        }
+    }
+
+    /**
+     * 读线程等待，直到缓冲区有数据或写入者关闭
+     * 返回false表示写入者已关闭并且没有剩余数据
+     */
+    private boolean awaitData() throws IOException {
+        Thread current = Thread.currentThread();
+        waitingReader = current;
+        try {
+            while (writeSeq == readSeq) {
+                if (closedByWriter) {
+                    //关闭前写入的数据对读线程是可见的，再检查一次
+                    return writeSeq != readSeq;
+                }
+                if (closedByReader) {
+                    throw new IOException("Pipe closed");
+                }
+                LockSupport.park(this);
+                checkInterrupt();
+            }
+            return true;
+        } finally {
+            waitingReader = null;
+        }
+    }
+
+    //接收一个字节的数据
+    void receive(int b) throws IOException {
+        checkStateForReceive();
+        long w = writeSeq;
+        if (w - readSeq == buffer.length) {
+            awaitSpace();
+        }
+        buffer[(int) w & mask] = (byte) b;
+        //发布写序号，然后唤醒读线程
+        writeSeq = w + 1;
+        signalReader();
+    }
+
+    //接收b[]数组从off下标开始的len个字节，空间不足时分批写入
+    void receive(byte b[], int off, int len) throws IOException {
+        checkStateForReceive();
+        while (len > 0) {
+            long w = writeSeq;
+            int free = buffer.length - (int) (w - readSeq);
+            if (free == 0) {
+                awaitSpace();
+                continue;
+            }
+            int n = Math.min(free, len);
+            int index = (int) w & mask;
+            //环形缓冲区可能需要分两段拷贝
+            int first = Math.min(n, buffer.length - index);
+            System.arraycopy(b, off, buffer, index, first);
+            if (n > first) {
+                System.arraycopy(b, off + first, buffer, 0, n - first);
+            }
+            writeSeq = w + n;
+            signalReader();
+            off += n;
+            len -= n;
+        }
+    }
+
+    //写入者关闭，唤醒读线程
+    void receivedLast() {
+        closedByWriter = true;
+        signalReader();
+    }
+
+    //读取下一个字节，没有数据时阻塞，写入者关闭且没有剩余数据时返回-1
+    public int read() throws IOException {
+        if (!connected) {
+            throw new IOException("Pipe not connected");
+        } else if (closedByReader) {
+            throw new IOException("Pipe closed");
+        }
+        long r = readSeq;
+        if (writeSeq == r && !awaitData()) {
+            return -1;
+        }
+        int ret = buffer[(int) r & mask] & 0xFF;
+        readSeq = r + 1;
+        signalWriter();
+        return ret;
+    }
+
+    //读取最多len个字节，至少读取一个字节前会阻塞
+    public int read(byte b[], int off, int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+        if (!connected) {
+            throw new IOException("Pipe not connected");
+        } else if (closedByReader) {
+            throw new IOException("Pipe closed");
+        }
+        long r = readSeq;
+        if (writeSeq == r && !awaitData()) {
+            return -1;
+        }
+        int n = Math.min((int) (writeSeq - r), len);
+        int index = (int) r & mask;
+        int first = Math.min(n, buffer.length - index);
+        System.arraycopy(buffer, index, b, off, first);
+        if (n > first) {
+            System.arraycopy(buffer, 0, b, off + first, n - first);
+        }
+        readSeq = r + n;
+        signalWriter();
+        return n;
+    }
+
+    //返回剩余可读的字节数
+    public int available() throws IOException {
+        if (closedByReader) {
+            return 0;
+        }
+        return (int) (writeSeq - readSeq);
+    }
+
+    //读取者关闭，唤醒可能在等待空间的写线程，让它发现管道已关闭
+    public void close() throws IOException {
+        closedByReader = true;
+        signalWriter();
+    }
+}
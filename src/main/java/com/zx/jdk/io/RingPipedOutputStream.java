@@ -0,0 +1,71 @@
+package com.zx.jdk.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 环形缓冲区管道输出流
+ * 写入的数据直接拷贝到连接的RingPipedInputStream的环形缓冲区中
+ * 和RingPipedInputStream一样，只支持单个写线程
+ */
+public class RingPipedOutputStream extends OutputStream {
+    //连接的管道输入流
+    private volatile RingPipedInputStream sink;
+
+    //创建一个连接到指定输入流的输出流
+    public RingPipedOutputStream(RingPipedInputStream snk) throws IOException {
+        connect(snk);
+    }
+
+    //创建一个未连接的输出流，使用前必须连接
+    public RingPipedOutputStream() {
+    }
+
+    //连接到指定输入流，任意一方已经连接过时抛出异常
+    public synchronized void connect(RingPipedInputStream snk) throws IOException {
+        if (snk == null) {
+            throw new NullPointerException();
+        } else if (sink != null || snk.connected) {
+            throw new IOException("Already connected");
+        }
+        sink = snk;
+        snk.connected = true;
+    }
+
+    //写入一个字节
+    public void write(int b) throws IOException {
+        RingPipedInputStream snk = sink;
+        if (snk == null) {
+            throw new IOException("Pipe not connected");
+        }
+        snk.receive(b);
+    }
+
+    //写入b[]数组从off位置开始的len个字节
+    public void write(byte b[], int off, int len) throws IOException {
+        RingPipedInputStream snk = sink;
+        if (snk == null) {
+            throw new IOException("Pipe not connected");
+        } else if (b == null) {
+            throw new NullPointerException();
+        } else if ((off < 0) || (off > b.length) || (len < 0) ||
+                ((off + len) > b.length) || ((off + len) < 0)) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return;
+        }
+        snk.receive(b, off, len);
+    }
+
+    //数据写入后立即对读线程可见，所以不需要做任何事
+    public void flush() throws IOException {
+    }
+
+    //关闭，通知输入流写入者已经关闭
+    public void close() throws IOException {
+        RingPipedInputStream snk = sink;
+        if (snk != null) {
+            snk.receivedLast();
+        }
+    }
+}
@@ -1,6 +1,13 @@
 package com.zx.jdk.io;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Enumeration;
 import java.util.Vector;
 /**
@@ -12,6 +19,10 @@ public class SequenceInputStream extends InputStream {
     Enumeration<? extends InputStream> e;
     //输入流，是集合中当前正在读取的那个输入流
     InputStream in;
+    //是否跨流读满，为true时，read(byte[],int,int)在当前流读完后会继续读取下一个流，直到读满len或所有流都读完
+    private boolean fillAcrossParts;
+    //transferTo()中非文件流拷贝时使用的缓冲区大小
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
 
     //传入集合，构建输入流
     public SequenceInputStream(Enumeration<? extends InputStream> e) {
@@ -66,6 +77,16 @@ public class SequenceInputStream extends InputStream {
 
     }
 
+    //设置是否跨流读满
+    public void setFillAcrossParts(boolean fillAcrossParts) {
+        this.fillAcrossParts = fillAcrossParts;
+    }
+
+    //返回是否跨流读满
+    public boolean isFillAcrossParts() {
+        return fillAcrossParts;
+    }
+
     //返回剩余可读字节数
     public int available() throws IOException {
         //如果没有流了，则返回0
@@ -108,6 +129,10 @@ public class SequenceInputStream extends InputStream {
         } else if (len == 0) {
             return 0;
         }
+        //跨流读满模式
+        if (fillAcrossParts) {
+            return readAcrossParts(b, off, len);
+        }
         //如果有可用的流，就一直循环，直到读取到下一数据
         do {
             //调用流自己的读取方法
@@ -124,6 +149,115 @@ public class SequenceInputStream extends InputStream {
         return -1;
     }
 
+    /**
+     * 一直读取，直到读满len个字节，当前流读完就继续读下一个流；
+     * 所有流都读完时，返回已经读到的字节数，一个都没读到则返回-1
+     */
+    private int readAcrossParts(byte b[], int off, int len) throws IOException {
+        int total = 0;
+        while (in != null && total < len) {
+            int n = in.read(b, off + total, len - total);
+            if (n > 0) {
+                total += n;
+            } else {
+                nextStream();
+            }
+        }
+        return (total == 0) ? -1 : total;
+    }
+
+    /**
+     * 将剩余的所有流的数据都写入out，返回写入的字节数，写完的流都会被关闭
+     * 如果某个流是java.io.FileInputStream并且out是FileOutputStream，则使用FileChannel.transferTo()直接在内核中传输，不经过用户空间
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        if (out == null) {
+            throw new NullPointerException();
+        }
+        if (out instanceof FileOutputStream) {
+            return transferTo(((FileOutputStream) out).getChannel());
+        }
+        long transferred = 0;
+        byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+        while (in != null) {
+            int n;
+            while ((n = in.read(buffer, 0, buffer.length)) >= 0) {
+                out.write(buffer, 0, n);
+                transferred += n;
+            }
+            nextStream();
+        }
+        return transferred;
+    }
+
+    /**
+     * 将剩余的所有流的数据都写入target通道，返回写入的字节数，写完的流都会被关闭
+     * java.io.FileInputStream从通道的当前位置开始使用FileChannel.transferTo()传输，其他流通过缓冲区拷贝；
+     * transferTo()在文件末尾之前返回0时，剩余部分改为缓冲区拷贝，一个流没有传输完之前不会切换到下一个流
+     *
+     * target必须是阻塞的，非阻塞的SelectableChannel(例如发送缓冲区会满的非阻塞socket)会抛出IllegalBlockingModeException；
+     * 阻塞的target连续多次写不进任何字节时抛出IOException，这时已经从流中读出、还没写入target的字节(最多一个缓冲区)会丢失，
+     * 已经写入的字节数也无法返回，所以出现异常后不能再用该流继续传输
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        if (target == null) {
+            throw new NullPointerException();
+        }
+        //非阻塞的通道写满时会一直返回0，无法保证数据写完，和Channels.newOutputStream()一样直接拒绝
+        if (target instanceof SelectableChannel && !((SelectableChannel) target).isBlocking()) {
+            throw new IllegalBlockingModeException();
+        }
+        long transferred = 0;
+        ByteBuffer buffer = null;
+        while (in != null) {
+            if (in instanceof java.io.FileInputStream) {
+                FileChannel fc = ((java.io.FileInputStream) in).getChannel();
+                long position = fc.position();
+                long size = fc.size();
+                //transferTo()一次不一定传输完，循环直到到达文件末尾，或者没有进展
+                while (position < size) {
+                    long n = fc.transferTo(position, size - position, target);
+                    if (n <= 0) {
+                        break;
+                    }
+                    position += n;
+                    transferred += n;
+                }
+                //同步流的位置，没有传输完的部分由下面的缓冲区拷贝接着读取
+                fc.position(position);
+            }
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+            }
+            int n;
+            while ((n = in.read(buffer.array(), 0, buffer.capacity())) >= 0) {
+                buffer.clear();
+                buffer.limit(n);
+                writeFully(target, buffer);
+                transferred += n;
+            }
+            nextStream();
+        }
+        return transferred;
+    }
+
+    //target连续写入0个字节的最大次数，超过后认为通道无法继续写入
+    private static final int MAX_ZERO_WRITES = 64;
+
+    //将buffer中剩余的字节全部写入阻塞的target，target一直写不进时抛出异常，而不是无限循环
+    private static void writeFully(WritableByteChannel target, ByteBuffer buffer) throws IOException {
+        int zeroWrites = 0;
+        while (buffer.hasRemaining()) {
+            if (target.write(buffer) > 0) {
+                zeroWrites = 0;
+            } else if (++zeroWrites >= MAX_ZERO_WRITES) {
+                throw new IOException("Target channel is not accepting data");
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
     //将集合中所有流都关闭
     public void close() throws IOException {
         //循环关闭所有流，知道in为空，也就是集合中没有可用流了
@@ -0,0 +1,224 @@
+package com.zx.jdk.io;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+/**
+ * 非同步的缓冲输入流-处理流-装饰者
+ * 和BufferedInputStream的fill()、mark()、reset()语义完全相同，只是读取路径上的方法都去掉了synchronized
+ * 所以该流只能被一个线程读取(线程封闭)，每读取一个字节不再需要进入/退出一次监视器锁
+ *
+ * close()依然使用bufUpdater原子地将缓冲区置为null，所以其他线程异步关闭该流仍然是安全的
+ */
+public class UnsynchronizedBufferedInputStream extends FilterInputStream {
+    //默认缓存大小
+    private static int DEFAULT_BUFFER_SIZE = 8192;
+    //JVM规定的缓存上限
+    private static int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    //缓存数组，volatile是为了让异步的close()对读取线程可见
+    protected volatile byte buf[];
+    //原子引用字段修改器，和BufferedInputStream中的一样，只用于fill()扩容和close()
+    private static final
+    AtomicReferenceFieldUpdater<UnsynchronizedBufferedInputStream, byte[]> bufUpdater =
+            AtomicReferenceFieldUpdater.newUpdater
+                    (UnsynchronizedBufferedInputStream.class,  byte[].class, "buf");
+    //最大允许读取的字节数，buf[0]-buf[count-1]是可以读取的字节
+    protected int count;
+    //下一个要读取的字节索引
+    protected int pos;
+    //最后一次调用mark()方法时pos的值；默认为-1
+    protected int markpos = -1;
+    //mark后最大可读字节数
+    protected int marklimit;
+
+    //如果属性 in输入流不为空，则返回in
+    private InputStream getInIfOpen() throws IOException {
+        InputStream input = in;
+        if (input == null)
+            throw new IOException("Stream closed");
+        return input;
+    }
+    //如果缓存数组不为空，则返回该缓存数组，否则抛出异常
+    private byte[] getBufIfOpen() throws IOException {
+        byte[] buffer = buf;
+        if (buffer == null)
+            throw new IOException("Stream closed");
+        return buffer;
+    }
+    //创建该类，缓存大小为默认值
+    public UnsynchronizedBufferedInputStream(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+    //创建该类，同时指定缓存大小
+    public UnsynchronizedBufferedInputStream(InputStream in, int size) {
+        super(in);
+        if (size <= 0) {
+            throw new IllegalArgumentException("Buffer size <= 0");
+        }
+        buf = new byte[size];
+    }
+
+    /**
+     * 用更多的数据填充缓存数组，处理mark标记；逻辑和BufferedInputStream.fill()一致
+     * 因为只有一个读取线程，CAS失败只可能是因为close()把buf置为了null
+     */
+    private void fill() throws IOException {
+        byte[] buffer = getBufIfOpen();
+        //没有mark，从头开始读取缓冲区
+        if (markpos < 0)
+            pos = 0;
+        //有mark，且缓冲区已经读完
+        else if (pos >= buffer.length)
+            //mark不在0位置，抛弃mark前的数据
+            if (markpos > 0) {
+                int sz = pos - markpos;
+                System.arraycopy(buffer, markpos, buffer, 0, sz);
+                pos = sz;
+                markpos = 0;
+            //超出marklimit，mark失效
+            } else if (buffer.length >= marklimit) {
+                markpos = -1;
+                pos = 0;
+            //超出缓冲区上限
+            } else if (buffer.length >= MAX_BUFFER_SIZE) {
+                throw new OutOfMemoryError("Required array size too large");
+            //扩大缓冲区，让mark不失效
+            } else {
+                int nsz = (pos <= MAX_BUFFER_SIZE - pos) ?
+                        pos * 2 : MAX_BUFFER_SIZE;
+                if (nsz > marklimit)
+                    nsz = marklimit;
+                byte nbuf[] = new byte[nsz];
+                System.arraycopy(buffer, 0, nbuf, 0, pos);
+                if (!bufUpdater.compareAndSet(this, buffer, nbuf)) {
+                    //只可能是被异步关闭了
+                    throw new IOException("Stream closed");
+                }
+                buffer = nbuf;
+            }
+        count = pos;
+        int n = getInIfOpen().read(buffer, pos, buffer.length - pos);
+        if (n > 0)
+            count = n + pos;
+    }
+
+    //读取下一个字节，缓冲区没数据了就先补满缓冲区
+    public int read() throws IOException {
+        if (pos >= count) {
+            fill();
+            if (pos >= count)
+                return -1;
+        }
+        return getBufIfOpen()[pos++] & 0xff;
+    }
+
+    //将数据读取到数组中，最多读取一次被装饰者
+    private int read1(byte[] b, int off, int len) throws IOException {
+        int avail = count - pos;
+        if (avail <= 0) {
+            //读取的长度大于等于缓冲区大小，且没有mark，则不通过缓冲区，直接读取
+            if (len >= getBufIfOpen().length && markpos < 0) {
+                return getInIfOpen().read(b, off, len);
+            }
+            fill();
+            avail = count - pos;
+            if (avail <= 0) return -1;
+        }
+        int cnt = (avail < len) ? avail : len;
+        System.arraycopy(getBufIfOpen(), pos, b, off, cnt);
+        pos += cnt;
+        return cnt;
+    }
+
+    //读取指定长度的数据到b[]数组的off位置后
+    public int read(byte b[], int off, int len)
+            throws IOException
+    {
+        getBufIfOpen();
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+
+        int n = 0;
+        for (;;) {
+            int nread = read1(b, off + n, len - n);
+            if (nread <= 0)
+                return (n == 0) ? nread : n;
+            n += nread;
+            if (n >= len)
+                return n;
+            InputStream input = in;
+            if (input != null && input.available() <= 0)
+                return n;
+        }
+    }
+
+    //跳过n长度的字节
+    public long skip(long n) throws IOException {
+        getBufIfOpen();
+        if (n <= 0) {
+            return 0;
+        }
+        long avail = count - pos;
+        if (avail <= 0) {
+            //没有mark，直接使用被装饰者的skip()方法即可
+            if (markpos <0)
+                return getInIfOpen().skip(n);
+            //有mark，填充缓存数组以便reset
+            fill();
+            avail = count - pos;
+            if (avail <= 0)
+                return 0;
+        }
+        long skipped = (avail < n) ? avail : n;
+        pos += skipped;
+        return skipped;
+    }
+
+    //缓存中的剩余可读 + 流中的剩余可读
+    public int available() throws IOException {
+        int n = count - pos;
+        int avail = getInIfOpen().available();
+        return n > (Integer.MAX_VALUE - avail)
+                ? Integer.MAX_VALUE
+                : n + avail;
+    }
+
+    //标记当前位置，覆盖了FilterInputStream中同步的mark()
+    public void mark(int readlimit) {
+        marklimit = readlimit;
+        markpos = pos;
+    }
+
+    //回退到mark()位置，覆盖了FilterInputStream中同步的reset()
+    public void reset() throws IOException {
+        getBufIfOpen();
+        if (markpos < 0)
+            throw new IOException("Resetting to invalid mark");
+        pos = markpos;
+    }
+
+    //支持mark()、reset()方法
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * 关闭该流，和BufferedInputStream一样，通过CAS将缓冲区置为null，
+     * 所以可以由读取线程以外的线程调用
+     */
+    public void close() throws IOException {
+        byte[] buffer;
+        while ( (buffer = buf) != null) {
+            if (bufUpdater.compareAndSet(this, buffer, null)) {
+                InputStream input = in;
+                in = null;
+                if (input != null)
+                    input.close();
+                return;
+            }
+            // Else retry in case a new buf was CASed in fill()
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.zx.jdk.io;
+import java.nio.ByteBuffer;
+/**
+ * 非同步的字节数组输入流
+ * 和ByteArrayInputStream完全相同，只是去掉了所有方法上的synchronized，只能在单个线程中使用(线程封闭)
+ * 配合readSlice(int, ByteBuffer)，可以在内存中的数据上做消息分帧，既不拷贝，也不创建对象
+ */
+public class UnsynchronizedByteArrayInputStream extends ByteArrayInputStream {
+    //使用整个数组创建该流
+    public UnsynchronizedByteArrayInputStream(byte buf[]) {
+        super(buf);
+    }
+
+    //使用数组中offset开始的length个字节创建该流
+    public UnsynchronizedByteArrayInputStream(byte buf[], int offset, int length) {
+        super(buf, offset, length);
+    }
+
+    //读取下一个字节
+    public int read() {
+        return (pos < count) ? (buf[pos++] & 0xff) : -1;
+    }
+
+    //读取len长度的字节到b[]数组的off位置
+    public int read(byte b[], int off, int len) {
+        if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (pos >= count) {
+            return -1;
+        }
+        int avail = count - pos;
+        if (len > avail) {
+            len = avail;
+        }
+        if (len <= 0) {
+            return 0;
+        }
+        System.arraycopy(buf, pos, b, off, len);
+        pos += len;
+        return len;
+    }
+
+    //创建一个覆盖整个buf[]的只读视图，只有最近一次返回的视图可以传给readSlice(int, ByteBuffer)
+    public ByteBuffer newView() {
+        return createView();
+    }
+
+    //零拷贝地读取最多n个字节到view中，view必须是最近一次newView()返回的视图
+    public ByteBuffer readSlice(int n, ByteBuffer view) {
+        checkView(view);
+        return slice(n, view);
+    }
+
+    //零拷贝地读取最多n个字节，返回一个新的只读视图
+    public ByteBuffer readSlice(int n) {
+        return slice(n, ByteBuffer.wrap(buf).asReadOnlyBuffer());
+    }
+
+    //跳过n个长度的字节
+    public long skip(long n) {
+        long k = count - pos;
+        if (n < k) {
+            k = n < 0 ? 0 : n;
+        }
+        pos += k;
+        return k;
+    }
+
+    //返回可读的字节长度
+    public int available() {
+        return count - pos;
+    }
+
+    //回到mark的位置
+    public void reset() {
+        pos = mark;
+    }
+}
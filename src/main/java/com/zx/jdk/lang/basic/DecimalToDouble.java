@@ -0,0 +1,335 @@
+package com.zx.jdk.lang.basic;
+
+import java.math.BigInteger;
+import sun.misc.FloatingDecimal;
+
+/**
+ * 十进制字符串转double的快速路径(Clinger + Eisel-Lemire算法)
+ * 只处理最常见的形式：[+-] 数字 [. 数字] [eE [+-] 数字] [fFdD]，前后可以有空白，
+ * 先扫描出最多19位有效数字w和十进制指数q，再计算 w * 10^q 最接近的double：
+ * 1. w <= 2^53 且 |q| <= 22 时，w和10^q都能用double精确表示，一次乘法或除法就得到正确舍入的结果
+ * 2. 否则用128位的 10^q 近似值和w相乘，只要乘积的舍入位不在模糊的范围内，结果就是确定的
+ * 其他情况(NaN、Infinity、十六进制、非规格化数、无法确定舍入的乘积、格式错误)都交给FloatingDecimal处理，
+ * 所以结果和抛出的NumberFormatException都和FloatingDecimal.parseDouble完全相同
+ */
+final class DecimalToDouble {
+    // 10的幂表的范围，q < Q_MIN 时结果一定是0，q > Q_MAX 时结果一定是无穷大
+    private static final int Q_MIN = -342;
+    private static final int Q_MAX = 308;
+    // 最多保留的有效数字个数，19位十进制数一定能放进无符号的long
+    private static final int MAX_DIGITS = 19;
+    // 指数的上限，超过它的指数结果都是0或者无穷大，避免int溢出
+    private static final int MAX_EXPONENT = 100_000;
+
+    private static final long SIGN_BIT = 0x8000000000000000L;
+    private static final long INFINITY_BITS = 0x7FF0000000000000L;
+    // toBits()无法确定结果时的返回值，它是一个NaN，快速路径不会产生NaN
+    private static final long FAILED = -1L;
+
+    // 1e0 到 1e22，都可以用double精确表示
+    private static final double[] SMALL_POW10 = new double[23];
+    /*
+     * 10^q 的128位近似值表，每个q占两个long
+     * 令 10^q = m * 2^r，其中 2^127 <= m < 2^128，POW10[2(q - Q_MIN)] 保存floor(m)的高64位，
+     * POW10[2(q - Q_MIN) + 1] 保存低64位
+     * 表在类初始化时用BigInteger计算一次
+     */
+    private static final long[] POW10 = new long[(Q_MAX - Q_MIN + 1) << 1];
+
+    static {
+        double p = 1;
+        for (int i = 0; i < SMALL_POW10.length; i++) {
+            SMALL_POW10[i] = p;
+            p *= 10;
+        }
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = Q_MIN; q <= Q_MAX; q++) {
+            BigInteger m;
+            if (q >= 0) {
+                BigInteger v = BigInteger.TEN.pow(q);
+                int n = v.bitLength();
+                m = n <= 128 ? v.shiftLeft(128 - n) : v.shiftRight(n - 128);
+            } else {
+                // 10^-q 不是2的幂，所以商严格位于 (2^127, 2^128) 之间
+                BigInteger v = BigInteger.TEN.pow(-q);
+                m = BigInteger.ONE.shiftLeft(127 + v.bitLength()).divide(v);
+            }
+            POW10[(q - Q_MIN) << 1] = m.shiftRight(64).longValue();
+            POW10[((q - Q_MIN) << 1) + 1] = m.and(mask64).longValue();
+        }
+    }
+
+    private DecimalToDouble() {
+    }
+
+    /**
+     * 解析字符序列s中 [begin, end) 范围内的字符，规则和FloatingDecimal.parseDouble相同
+     */
+    static double parse(CharSequence s, int begin, int end) {
+        int i = begin, n = end;
+        // 和String.trim()一样去掉前后的空白
+        while (i < n && s.charAt(i) <= ' ') {
+            i++;
+        }
+        while (n > i && s.charAt(n - 1) <= ' ') {
+            n--;
+        }
+        boolean negative = false;
+        if (i < n) {
+            char c = s.charAt(i);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                i++;
+            }
+        }
+        // 有效数字(无符号)、有效数字的个数、十进制指数
+        long w = 0;
+        int nd = 0;
+        int q = 0;
+        boolean truncated = false;
+        boolean sawDigit = false;
+        boolean fraction = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            int d = c - '0';
+            if (d >= 0 && d <= 9) {
+                sawDigit = true;
+                if (nd < MAX_DIGITS) {
+                    // 前导的0不是有效数字
+                    if (nd > 0 || d != 0) {
+                        w = w * 10 + d;
+                        nd++;
+                    }
+                    if (fraction) {
+                        q--;
+                    }
+                } else {
+                    // 放不下的数字只记录是否丢弃了非0值
+                    truncated |= d != 0;
+                    if (!fraction) {
+                        q++;
+                    }
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (sawDigit && i < n && (s.charAt(i) | 0x20) == 'e') {
+            i++;
+            boolean negExp = false;
+            if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negExp = s.charAt(i) == '-';
+                i++;
+            }
+            int start = i;
+            int e = 0;
+            for (; i < n; i++) {
+                int d = s.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                if (e < MAX_EXPONENT) {
+                    e = e * 10 + d;
+                }
+            }
+            if (i == start) {
+                sawDigit = false;
+            }
+            q += negExp ? -e : e;
+        }
+        if (i < n) {
+            char c = s.charAt(i);
+            if (c == 'd' || c == 'D' || c == 'f' || c == 'F') {
+                i++;
+            }
+        }
+        if (sawDigit && i == n) {
+            long bits = toBits(w, q, negative, truncated);
+            if (bits != FAILED) {
+                return Double.longBitsToDouble(bits);
+            }
+        }
+        return FloatingDecimal.parseDouble(s.subSequence(begin, end).toString());
+    }
+
+    /**
+     * 解析字节数组buf中从off开始的len个字节(ASCII)，规则和FloatingDecimal.parseDouble相同
+     */
+    static double parse(byte[] buf, int off, int len) {
+        int i = off, n = off + len;
+        while (i < n && (buf[i] & 0xff) <= ' ') {
+            i++;
+        }
+        while (n > i && (buf[n - 1] & 0xff) <= ' ') {
+            n--;
+        }
+        boolean negative = false;
+        if (i < n && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+        long w = 0;
+        int nd = 0;
+        int q = 0;
+        boolean truncated = false;
+        boolean sawDigit = false;
+        boolean fraction = false;
+        for (; i < n; i++) {
+            byte c = buf[i];
+            int d = c - '0';
+            if (d >= 0 && d <= 9) {
+                sawDigit = true;
+                if (nd < MAX_DIGITS) {
+                    if (nd > 0 || d != 0) {
+                        w = w * 10 + d;
+                        nd++;
+                    }
+                    if (fraction) {
+                        q--;
+                    }
+                } else {
+                    truncated |= d != 0;
+                    if (!fraction) {
+                        q++;
+                    }
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (sawDigit && i < n && (buf[i] | 0x20) == 'e') {
+            i++;
+            boolean negExp = false;
+            if (i < n && (buf[i] == '-' || buf[i] == '+')) {
+                negExp = buf[i] == '-';
+                i++;
+            }
+            int start = i;
+            int e = 0;
+            for (; i < n; i++) {
+                int d = buf[i] - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                if (e < MAX_EXPONENT) {
+                    e = e * 10 + d;
+                }
+            }
+            if (i == start) {
+                sawDigit = false;
+            }
+            q += negExp ? -e : e;
+        }
+        if (i < n) {
+            byte c = buf[i];
+            if (c == 'd' || c == 'D' || c == 'f' || c == 'F') {
+                i++;
+            }
+        }
+        if (sawDigit && i == n) {
+            long bits = toBits(w, q, negative, truncated);
+            if (bits != FAILED) {
+                return Double.longBitsToDouble(bits);
+            }
+        }
+        return FloatingDecimal.parseDouble(
+                new String(buf, off, len, java.nio.charset.StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 返回 w * 10^q 最接近的double的位模式，无法确定时返回FAILED
+     * truncated表示w后面还有被丢弃的非0数字，此时真实值在 w 和 w + 1 之间，两端的结果相同才能确定
+     */
+    private static long toBits(long w, int q, boolean negative, boolean truncated) {
+        long sign = negative ? SIGN_BIT : 0;
+        if (w == 0) {
+            return sign;
+        }
+        if (!truncated) {
+            // Clinger快速路径，w和10^q都是精确的，IEEE运算保证结果正确舍入
+            if (w > 0 && w <= 1L << 53 && q >= -22 && q <= 22) {
+                double d = (double) w;
+                d = q < 0 ? d / SMALL_POW10[-q] : d * SMALL_POW10[q];
+                return Double.doubleToRawLongBits(d) | sign;
+            }
+            return eiselLemire(w, q, sign);
+        }
+        long bits = eiselLemire(w, q, sign);
+        if (bits != FAILED && bits == eiselLemire(w + 1, q, sign)) {
+            return bits;
+        }
+        return FAILED;
+    }
+
+    /**
+     * Eisel-Lemire算法，w为无符号数
+     * 将w规格化后与128位的 10^q 相乘，取乘积的高54位作为尾数(多一位用于舍入)，
+     * 只在乘积的低位可能影响舍入，或者正好位于两个double中间时返回FAILED
+     */
+    private static long eiselLemire(long w, int q, long sign) {
+        if (q < Q_MIN) {
+            return sign;
+        }
+        if (q > Q_MAX) {
+            return INFINITY_BITS | sign;
+        }
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        // 217706 / 2^16 约等于 log2(10)
+        long exp2 = ((217706L * q) >> 16) + 64 + 1023 - lz;
+
+        long hi5 = POW10[(q - Q_MIN) << 1];
+        long lo5 = POW10[((q - Q_MIN) << 1) + 1];
+        long xHi = unsignedMultiplyHigh(w, hi5);
+        long xLo = w * hi5;
+
+        // 乘积的低9位全是1时，截断的低64位可能进位，再乘上 10^q 的低64位
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + w, w) < 0) {
+            long yHi = unsignedMultiplyHigh(w, lo5);
+            long yLo = w * lo5;
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0
+                    && Long.compareUnsigned(yLo + w, w) < 0) {
+                return FAILED;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        // 取高54位
+        long msb = xHi >>> 63;
+        long mantissa = xHi >>> (int) (msb + 9);
+        exp2 -= 1 ^ msb;
+
+        // 正好位于两个double中间，需要精确计算
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (mantissa & 3) == 1) {
+            return FAILED;
+        }
+
+        // 舍入到53位
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if ((mantissa >>> 53) > 0) {
+            mantissa >>>= 1;
+            exp2 += 1;
+        }
+        // 非规格化数和溢出都交给慢速路径
+        if (exp2 <= 0 || exp2 >= 0x7FF) {
+            return FAILED;
+        }
+        return exp2 << 52 | mantissa & 0x000FFFFFFFFFFFFFL | sign;
+    }
+
+    // 无符号128位乘积的高64位
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return DoubleToDecimal.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
@@ -1,7 +1,6 @@
 
 package com.zx.jdk.lang.basic;
 
-import sun.misc.FloatingDecimal;
 import sun.misc.FpUtils;
 import sun.misc.DoubleConsts;
 
@@ -157,7 +156,24 @@ public final class Double extends Number implements Comparable<Double> {
      * @return a string representation of the argument.
      */
     public static String toString(double d) {
-        return FloatingDecimal.toJavaFormatString(d);
+        return DoubleToDecimal.toString(d);
+    }
+
+    /**
+     * 将d的十进制形式写入调用者提供的char[]，从off位置开始，返回写入后的下一个位置
+     * 和toString(double)的结果相同，但不会创建char[]和String
+     * buf中从off开始的空间不够时抛出IndexOutOfBoundsException，此时buf不会被修改
+     */
+    public static int formatDecimal(double d, char[] buf, int off) {
+        return DoubleToDecimal.format(d, buf, off);
+    }
+
+    /**
+     * 将d的十进制形式以ASCII字节写入调用者提供的byte[]，从off位置开始，返回写入后的下一个位置
+     * buf中从off开始的空间不够时抛出IndexOutOfBoundsException，此时buf不会被修改
+     */
+    public static int formatDecimal(double d, byte[] buf, int off) {
+        return DoubleToDecimal.format(d, buf, off);
     }
 
     /**
@@ -491,7 +507,36 @@ public final class Double extends Number implements Comparable<Double> {
      * @since 1.2
      */
     public static double parseDouble(String s) throws NumberFormatException {
-        return FloatingDecimal.parseDouble(s);
+        return DecimalToDouble.parse(s, 0, s.length());
+    }
+
+    /**
+     * 将 字节数组buf中从off开始的len个字节(ASCII)解析为double
+     * 规则、结果和抛出的NumberFormatException都和parseDouble(String)相同，
+     * 但不需要先把字节转成String，常见的十进制形式解析时不会创建任何对象
+     */
+    public static double parseDouble(byte[] buf, int off, int len) throws NumberFormatException {
+        if (buf == null) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || len > buf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        return DecimalToDouble.parse(buf, off, len);
+    }
+
+    /**
+     * 将 字符序列s中 [begin, end) 范围内的字符解析为double
+     * 规则和parseDouble(String)相同，不需要先调用subSequence()/toString()
+     */
+    public static double parseDouble(CharSequence s, int begin, int end) throws NumberFormatException {
+        if (s == null) {
+            throw new NullPointerException();
+        }
+        if (begin < 0 || begin > end || end > s.length()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return DecimalToDouble.parse(s, begin, end);
     }
 
     /**
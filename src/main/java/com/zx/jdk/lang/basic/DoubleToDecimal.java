@@ -0,0 +1,442 @@
+package com.zx.jdk.lang.basic;
+
+import java.math.BigInteger;
+
+/**
+ * double转十进制字符串的引擎(Schubfach算法)
+ * 对每个有限的double，选出 能够精确还原为该double的十进制数 中位数最少的一个(位数相同时选最接近的)，
+ * 再按Double.toString(double)规定的格式输出：
+ * 10^-3 <= |v| < 10^7 时为普通小数形式，小数点后至少一位，例如 100.0、0.001；否则为科学计数法，例如 1.0E7、4.9E-324
+ *
+ * 和FloatingDecimal不同，整个过程只用long做定长运算，不会创建BigInteger等中间对象，
+ * 结果直接写入调用者提供的byte[]或char[]；转换器的状态保存在每个线程一个的可复用实例中，所以写入调用者的数组时不会创建任何对象
+ */
+final class DoubleToDecimal {
+    // 有效位数(包括隐含的最高位)
+    private static final int P = 53;
+    // 最小的指数，最小的非规格化数为 1 * 2^Q_MIN
+    private static final int Q_MIN = -1074;
+    // 规格化数隐含的最高位
+    private static final long C_MIN = 1L << (P - 1);
+    // 指数部分的掩码
+    private static final int BQ_MASK = 0x7FF;
+    // 尾数部分的掩码
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+    // 尾数小于C_TINY的非规格化数，需要多保留一位精度才能选出最短的结果
+    private static final int C_TINY = 3;
+    // 十进制结果最多的位数
+    private static final int H = 17;
+    // 输出的最大长度，例如 -2.2250738585072014E-308
+    static final int MAX_CHARS = H + 7;
+
+    // 10的幂表的范围，10^-k 中k的取值范围
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+
+    private static final int MASK_28 = (1 << 28) - 1;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    // 10^0 到 10^17
+    private static final long[] POW10 = new long[H + 1];
+    /*
+     * 10^-k 的126位近似值表，每个k占两个long
+     * 令 10^-k = β * 2^r，其中 2^125 <= β < 2^126，g = floor(β) + 1，
+     * G[2(k - K_MIN)] 保存g的高63位，G[2(k - K_MIN) + 1] 保存g的低63位
+     * 表在类初始化时用BigInteger计算一次，之后的转换都不再使用BigInteger
+     */
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) << 1];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i <= H; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            // β = 10^e * 2^s，s = 125 - floor(log2(10^e))
+            int s = 125 - flog2pow10(e);
+            BigInteger g;
+            if (e >= 0) {
+                BigInteger p = BigInteger.TEN.pow(e);
+                g = s >= 0 ? p.shiftLeft(s) : p.shiftRight(-s);
+            } else {
+                g = BigInteger.ONE.shiftLeft(s).divide(BigInteger.TEN.pow(-e));
+            }
+            g = g.add(BigInteger.ONE);
+            G[(k - K_MIN) << 1] = g.shiftRight(63).longValue();
+            G[((k - K_MIN) << 1) + 1] = g.and(mask63).longValue();
+        }
+    }
+
+    // 每个线程一个转换器，转换时复用，不再每次创建
+    private static final ThreadLocal<DoubleToDecimal> CACHE = ThreadLocal.withInitial(DoubleToDecimal::new);
+
+    // 调用者的数组剩余空间不到MAX_CHARS时，先写到这里，确认放得下再拷贝
+    private final char[] scratch = new char[MAX_CHARS];
+    // 写入的目标，转换时二者只有一个不为null，转换后都置为null，不持有调用者的数组
+    private byte[] bytes;
+    private char[] chars;
+    // 最后写入的字符的位置
+    private int index;
+
+    private DoubleToDecimal() {
+    }
+
+    /**
+     * 将v的十进制形式写入buf的off位置，返回写入后的下一个位置
+     * buf中从off开始至少要有MAX_CHARS个位置
+     */
+    static int toChars(double v, byte[] buf, int off) {
+        return CACHE.get().convert(v, buf, null, off);
+    }
+
+    /**
+     * 将v的十进制形式写入buf的off位置，返回写入后的下一个位置
+     * buf中从off开始至少要有MAX_CHARS个位置
+     */
+    static int toChars(double v, char[] buf, int off) {
+        return CACHE.get().convert(v, null, buf, off);
+    }
+
+    /**
+     * 将v的十进制形式写入buf的off位置，返回写入后的下一个位置
+     * buf中剩余的空间可以少于MAX_CHARS，放不下时抛出IndexOutOfBoundsException，此时buf不会被修改
+     */
+    static int format(double v, char[] buf, int off) {
+        if (off < 0 || off > buf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        DoubleToDecimal d = CACHE.get();
+        if (buf.length - off >= MAX_CHARS) {
+            return d.convert(v, null, buf, off);
+        }
+        int len = d.convert(v, null, d.scratch, 0);
+        if (len > buf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        System.arraycopy(d.scratch, 0, buf, off, len);
+        return off + len;
+    }
+
+    // format(double, char[], int)的byte[]版本
+    static int format(double v, byte[] buf, int off) {
+        if (off < 0 || off > buf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        DoubleToDecimal d = CACHE.get();
+        if (buf.length - off >= MAX_CHARS) {
+            return d.convert(v, buf, null, off);
+        }
+        int len = d.convert(v, null, d.scratch, 0);
+        if (len > buf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int i = 0; i < len; i++) {
+            buf[off + i] = (byte) d.scratch[i];
+        }
+        return off + len;
+    }
+
+    // 返回v的十进制字符串
+    static String toString(double v) {
+        DoubleToDecimal d = CACHE.get();
+        return new String(d.scratch, 0, d.convert(v, null, d.scratch, 0));
+    }
+
+    // 设置写入的目标并转换，返回写入后的下一个位置
+    private int convert(double v, byte[] bytes, char[] chars, int off) {
+        this.bytes = bytes;
+        this.chars = chars;
+        this.index = off - 1;
+        try {
+            return toDecimal(v);
+        } finally {
+            this.bytes = null;
+            this.chars = null;
+        }
+    }
+
+    // 转换v，返回写入后的下一个位置
+    private int toDecimal(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq < BQ_MASK) {
+            if (bits < 0) {
+                append('-');
+            }
+            if (bq != 0) {
+                // 规格化数 v = c * 2^-mq
+                int mq = -Q_MIN + 1 - bq;
+                long c = C_MIN | t;
+                // v是整数时，直接输出这个整数
+                if (0 < mq & mq < P) {
+                    long f = c >> mq;
+                    if (f << mq == c) {
+                        return toChars(f, 0);
+                    }
+                }
+                return toDecimal(-mq, c, 0);
+            }
+            if (t != 0) {
+                // 非规格化数
+                return t < C_TINY
+                        ? toDecimal(Q_MIN, 10 * t, -1)
+                        : toDecimal(Q_MIN, t, 0);
+            }
+            return appendString("0.0");
+        }
+        if (t != 0) {
+            return appendString("NaN");
+        }
+        if (bits < 0) {
+            append('-');
+        }
+        return appendString("Infinity");
+    }
+
+    /**
+     * 转换 v = c * 2^q，结果为 f * 10^(k + dk)
+     * 计算v的舍入区间在10^k这一级上的端点，先尝试位数少一位的候选值，再在s和s + 1中选择
+     */
+    private int toDecimal(int q, long c, int dk) {
+        // c为奇数时舍入区间不包含端点
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // 2的幂处，下方的间隔只有上方的一半
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = G[(k - K_MIN) << 1];
+        long g0 = G[((k - K_MIN) << 1) + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // sp10 = 10 * floor(s / 10)，尝试少一位的结果
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k);
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk);
+        }
+        // s和t都在舍入区间内，选择更接近的，一样近时选偶数
+        long cmp = vb - (s + t << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * 计算 g * cp / 2^127 的向奇数舍入的结果，g = g1 * 2^63 + g0
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * 输出 f * 10^e
+     * 先将f补齐到17位，再拆成 h(1位)、m(8位)、l(8位) 三段，之后都用int运算
+     */
+    private int toChars(long f, int e) {
+        int len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POW10[len]) {
+            len += 1;
+        }
+        f *= POW10[H - len];
+        e += len;
+
+        // hm = f / 10^8
+        long hm = multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - 100_000_000L * hm);
+        // h = hm / 10^8
+        int h = (int) (hm * 1_441_151_881L >>> 57);
+        int m = (int) (hm - 100_000_000 * h);
+
+        // 此时 v = 0.hml * 10^e
+        if (0 < e && e <= 7) {
+            return toChars1(h, m, l, e);
+        }
+        if (-3 < e && e <= 0) {
+            return toChars2(h, m, l, e);
+        }
+        return toChars3(h, m, l, e);
+    }
+
+    // 1 <= v < 10^7，小数点在第e位之后
+    private int toChars1(int h, int m, int l, int e) {
+        appendDigit(h);
+        int y = y(m);
+        int t;
+        int i = 1;
+        for (; i < e; ++i) {
+            t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+        append('.');
+        for (; i <= 8; ++i) {
+            t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+        return lowDigits(l);
+    }
+
+    // 10^-3 <= v < 1，小数点后先补-e个0
+    private int toChars2(int h, int m, int l, int e) {
+        appendDigit(0);
+        append('.');
+        for (; e < 0; ++e) {
+            appendDigit(0);
+        }
+        appendDigit(h);
+        append8Digits(m);
+        return lowDigits(l);
+    }
+
+    // 科学计数法
+    private int toChars3(int h, int m, int l, int e) {
+        appendDigit(h);
+        append('.');
+        append8Digits(m);
+        lowDigits(l);
+        return exponent(e - 1);
+    }
+
+    // 写入最后8位，然后去掉末尾的0(小数点后至少保留一位)
+    private int lowDigits(int l) {
+        if (l != 0) {
+            append8Digits(l);
+        }
+        return removeTrailingZeroes();
+    }
+
+    // 写入8位数字m(不足8位补0)
+    private void append8Digits(int m) {
+        int y = y(m);
+        for (int i = 0; i < 8; ++i) {
+            int t = 10 * y;
+            appendDigit(t >>> 28);
+            y = t & MASK_28;
+        }
+    }
+
+    // 去掉末尾的0，如果去到了小数点，保留小数点后的一个0
+    private int removeTrailingZeroes() {
+        while (charAt(index) == '0') {
+            --index;
+        }
+        if (charAt(index) == '.') {
+            ++index;
+        }
+        return index + 1;
+    }
+
+    /**
+     * 将8位数a转为28位的定点小数 a / 10^8，每次乘以10取高位得到下一位数字
+     */
+    private static int y(int a) {
+        return (int) (multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    // 写入指数部分
+    private int exponent(int e) {
+        append('E');
+        if (e < 0) {
+            append('-');
+            e = -e;
+        }
+        if (e < 10) {
+            appendDigit(e);
+            return index + 1;
+        }
+        int d;
+        if (e >= 100) {
+            // d = e / 100
+            d = e * 1_311 >>> 17;
+            appendDigit(d);
+            e -= 100 * d;
+        }
+        // d = e / 10
+        d = e * 103 >>> 10;
+        appendDigit(d);
+        appendDigit(e - 10 * d);
+        return index + 1;
+    }
+
+    private int charAt(int i) {
+        return bytes != null ? bytes[i] : chars[i];
+    }
+
+    private void append(int c) {
+        if (bytes != null) {
+            bytes[++index] = (byte) c;
+        } else {
+            chars[++index] = (char) c;
+        }
+    }
+
+    private void appendDigit(int d) {
+        append('0' + d);
+    }
+
+    private int appendString(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            append(s.charAt(i));
+        }
+        return index + 1;
+    }
+
+    // floor(q * log10(2))
+    private static int flog10pow2(int q) {
+        return (int) (q * 661_971_961_083L >> 41);
+    }
+
+    // floor(log10(3/4 * 2^q))
+    private static int flog10threeQuartersPow2(int q) {
+        return (int) (q * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    // floor(e * log2(10))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * 有符号128位乘积的高64位(Java 8没有Math.multiplyHigh)
+     */
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32, x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32, y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = (t & 0xFFFFFFFFL) + x2 * y1;
+        return x1 * y1 + (t >> 32) + (z1 >> 32);
+    }
+}
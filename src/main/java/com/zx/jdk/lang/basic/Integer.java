@@ -442,6 +442,98 @@ public final class Integer extends Number implements Comparable<Integer> {
     }
 
 
+    /**
+     * 和getChars(int, int, char[])相同，只是以ASCII字节的形式存入byte[]
+     * 如果i==Integer.MIN_VALUE将会失败
+     */
+    static void getBytes(int i, int index, byte[] buf) {
+        int q, r;
+        int charPos = index;
+        byte sign = 0;
+
+        if (i < 0) {
+            sign = '-';
+            i = -i;
+        }
+
+        // Generate two digits per iteration
+        while (i >= 65536) {
+            q = i / 100;
+            // really: r = i - (q * 100);
+            r = i - ((q << 6) + (q << 5) + (q << 2));
+            i = q;
+            buf [--charPos] = (byte) DigitOnes[r];
+            buf [--charPos] = (byte) DigitTens[r];
+        }
+
+        // Fall thru to fast mode for smaller numbers
+        for (;;) {
+            q = (i * 52429) >>> (16+3);
+            r = i - ((q << 3) + (q << 1));  // r = i-(q*10) ...
+            buf [--charPos] = (byte) digits [r];
+            i = q;
+            if (i == 0) break;
+        }
+        if (sign != 0) {
+            buf [--charPos] = sign;
+        }
+    }
+
+    /**
+     * 将i的十进制形式写入调用者提供的char[]，从off位置开始，返回写入后的下一个位置
+     * 和toString(int)的结果相同，但不会创建char[]和String，可以在日志、CSV等输出中反复使用同一个缓冲区
+     * buf中从off开始的空间不够时抛出IndexOutOfBoundsException，此时buf不会被修改
+     */
+    public static int formatDecimal(int i, char[] buf, int off) {
+        if (i == Integer.MIN_VALUE) {
+            return putAscii("-2147483648", buf, off);
+        }
+        int size = (i < 0) ? stringSize(-i) + 1 : stringSize(i);
+        if (off < 0 || off > buf.length - size) {
+            throw new IndexOutOfBoundsException();
+        }
+        getChars(i, off + size, buf);
+        return off + size;
+    }
+
+    /**
+     * 将i的十进制形式以ASCII字节写入调用者提供的byte[]，从off位置开始，返回写入后的下一个位置
+     * buf中从off开始的空间不够时抛出IndexOutOfBoundsException，此时buf不会被修改
+     */
+    public static int formatDecimal(int i, byte[] buf, int off) {
+        if (i == Integer.MIN_VALUE) {
+            return putAscii("-2147483648", buf, off);
+        }
+        int size = (i < 0) ? stringSize(-i) + 1 : stringSize(i);
+        if (off < 0 || off > buf.length - size) {
+            throw new IndexOutOfBoundsException();
+        }
+        getBytes(i, off + size, buf);
+        return off + size;
+    }
+
+    //将常量字符串s写入buf的off位置，返回写入后的下一个位置，只用于MIN_VALUE这种无法取负的值
+    static int putAscii(String s, char[] buf, int off) {
+        int len = s.length();
+        if (off < 0 || off > buf.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        s.getChars(0, len, buf, off);
+        return off + len;
+    }
+
+    //将常量字符串s以ASCII字节写入buf的off位置，返回写入后的下一个位置
+    static int putAscii(String s, byte[] buf, int off) {
+        int len = s.length();
+        if (off < 0 || off > buf.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int j = 0; j < len; j++) {
+            buf[off + j] = (byte) s.charAt(j);
+        }
+        return off + len;
+    }
+
     //该数组在下面的stringSize方法中被用来判断 正数int型数字的长度
     //这个怎么说呢，我是没想到过这样的判断方式的
     final static int [] sizeTable = { 9, 99, 999, 9999, 99999, 999999, 9999999,
@@ -561,6 +653,13 @@ public final class Integer extends Number implements Comparable<Integer> {
                     throw NumberFormatException.forInputString(s);
                 i++;
             }
+            //十进制并且不超过9位数字时不会溢出，先走SWAR快速路径；遇到非ASCII数字时回到下面的逐字符循环
+            if (radix == 10 && len - i <= 9) {
+                long v = parseDecimalDigits(s, i, len);
+                if (v >= 0) {
+                    return negative ? (int) -v : (int) v;
+                }
+            }
             multmin = limit / radix;
             while (i < len) {
                 // Accumulating negatively avoids surprises near MAX_VALUE
@@ -605,6 +704,239 @@ public final class Integer extends Number implements Comparable<Integer> {
         return parseInt(s,10);
     }
 
+    /**
+     * 将 字节数组buf中从off开始的len个字节(ASCII)解析为 radix进制的int，有符号
+     * 规则、溢出判断、抛出的NumberFormatException和parseInt(String, int)完全相同，
+     * 但不需要先把字节转成String，可以直接在BufferedInputStream的缓冲区上解析，解析成功时不会创建任何对象
+     */
+    public static int parseInt(byte[] buf, int off, int len, int radix)
+            throws NumberFormatException
+    {
+        //buf不为空，范围不越界
+        if (buf == null) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || len > buf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (radix < Character.MIN_RADIX) {
+            throw new NumberFormatException("radix " + radix +
+                    " less than Character.MIN_RADIX");
+        }
+        if (radix > Character.MAX_RADIX) {
+            throw new NumberFormatException("radix " + radix +
+                    " greater than Character.MAX_RADIX");
+        }
+        int result = 0;
+        boolean negative = false;
+        int i = off, end = off + len;
+        int limit = -Integer.MAX_VALUE;
+        int multmin;
+        int digit;
+
+        if (len > 0) {
+            //字节按ISO-8859-1转为char，ASCII范围外的字节都不是数字
+            char firstChar = (char) (buf[i] & 0xff);
+            if (firstChar < '0') { // Possible leading "+" or "-"
+                if (firstChar == '-') {
+                    negative = true;
+                    limit = Integer.MIN_VALUE;
+                } else if (firstChar != '+')
+                    throw forInputBytes(buf, off, len);
+
+                if (len == 1) // Cannot have lone "+" or "-"
+                    throw forInputBytes(buf, off, len);
+                i++;
+            }
+            //十进制并且不超过9位数字时，走SWAR快速路径，校验失败时回到下面的逐字节循环抛出异常
+            if (radix == 10 && end - i <= 9) {
+                long v = parseDecimalDigits(buf, i, end);
+                if (v >= 0) {
+                    return negative ? (int) -v : (int) v;
+                }
+            }
+            multmin = limit / radix;
+            while (i < end) {
+                // Accumulating negatively avoids surprises near MAX_VALUE
+                digit = Character.digit((char) (buf[i++] & 0xff), radix);
+                if (digit < 0 || result < multmin) {
+                    throw forInputBytes(buf, off, len);
+                }
+                result *= radix;
+                if (result < limit + digit) {
+                    throw forInputBytes(buf, off, len);
+                }
+                result -= digit;
+            }
+        } else {
+            throw NumberFormatException.forInputString("");
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * 将 字符序列s中 [begin, end) 范围内的字符解析为 radix进制的int，有符号
+     * 规则和parseInt(String, int)相同，不需要先调用subSequence()/toString()，解析成功时不会创建任何对象
+     */
+    public static int parseInt(CharSequence s, int begin, int end, int radix)
+            throws NumberFormatException
+    {
+        if (s == null) {
+            throw new NullPointerException();
+        }
+        if (begin < 0 || begin > end || end > s.length()) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (radix < Character.MIN_RADIX) {
+            throw new NumberFormatException("radix " + radix +
+                    " less than Character.MIN_RADIX");
+        }
+        if (radix > Character.MAX_RADIX) {
+            throw new NumberFormatException("radix " + radix +
+                    " greater than Character.MAX_RADIX");
+        }
+        int result = 0;
+        boolean negative = false;
+        int i = begin;
+        int limit = -Integer.MAX_VALUE;
+        int multmin;
+        int digit;
+
+        if (i < end) {
+            char firstChar = s.charAt(i);
+            if (firstChar < '0') { // Possible leading "+" or "-"
+                if (firstChar == '-') {
+                    negative = true;
+                    limit = Integer.MIN_VALUE;
+                } else if (firstChar != '+')
+                    throw NumberFormatException.forInputString(s.subSequence(begin, end).toString());
+
+                if (end - begin == 1) // Cannot have lone "+" or "-"
+                    throw NumberFormatException.forInputString(s.subSequence(begin, end).toString());
+                i++;
+            }
+            //十进制并且不超过9位数字时不会溢出，和parseInt(String, int)一样先走SWAR快速路径
+            if (radix == 10 && end - i <= 9) {
+                long v = parseDecimalDigits(s, i, end);
+                if (v >= 0) {
+                    return negative ? (int) -v : (int) v;
+                }
+            }
+            multmin = limit / radix;
+            while (i < end) {
+                // Accumulating negatively avoids surprises near MAX_VALUE
+                digit = Character.digit(s.charAt(i++), radix);
+                if (digit < 0 || result < multmin) {
+                    throw NumberFormatException.forInputString(s.subSequence(begin, end).toString());
+                }
+                result *= radix;
+                if (result < limit + digit) {
+                    throw NumberFormatException.forInputString(s.subSequence(begin, end).toString());
+                }
+                result -= digit;
+            }
+        } else {
+            throw NumberFormatException.forInputString("");
+        }
+        return negative ? result : -result;
+    }
+
+    //解析字节失败时创建异常，只有失败时才把字节转为String
+    static NumberFormatException forInputBytes(byte[] buf, int off, int len) {
+        return NumberFormatException.forInputString(
+                new String(buf, off, len, java.nio.charset.StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 下面几个方法是十进制解析的SWAR(SIMD within a register)快速路径，Long.parseLong也会使用
+     * 将8个ASCII字符按 小端顺序(第一个字符在最低字节) 装入一个long，然后一次性校验和转换这8个数字，
+     * 代替逐字符的Character.digit() + 乘法溢出检查
+     *
+     * 解析s中[i, end)的十进制数字，返回它的值；有任何字符不是ASCII数字时返回-1，由调用者回到逐字符的循环
+     * 每8个数字用SWAR一次校验和转换，不足8个的部分逐字符处理；调用者保证数字不超过18位，所以不会溢出
+     */
+    static long parseDecimalDigits(CharSequence s, int i, int end) {
+        long v = 0;
+        for (; end - i >= 8; i += 8) {
+            long w = pack8(s, i);
+            if (!isEightDigits(w)) {
+                return -1;
+            }
+            v = v * 100000000L + parseEightDigits(w);
+        }
+        for (; i < end; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    //parseDecimalDigits(CharSequence, int, int)的byte[]版本
+    static long parseDecimalDigits(byte[] buf, int i, int end) {
+        long v = 0;
+        for (; end - i >= 8; i += 8) {
+            long w = pack8(buf, i);
+            if (!isEightDigits(w)) {
+                return -1;
+            }
+            v = v * 100000000L + parseEightDigits(w);
+        }
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    //将字符序列s中从i开始的8个字符装入long，有字符超过0xFF时返回-1(-1一定无法通过isEightDigits()校验)
+    static long pack8(CharSequence s, int i) {
+        long val = 0;
+        int or = 0;
+        for (int j = 7; j >= 0; j--) {
+            char c = s.charAt(i + j);
+            or |= c;
+            val = (val << 8) | c;
+        }
+        return (or & 0xFF00) == 0 ? val : -1L;
+    }
+
+    //将buf中从i开始的8个字节装入long
+    static long pack8(byte[] buf, int i) {
+        long val = 0;
+        for (int j = 7; j >= 0; j--) {
+            val = (val << 8) | (buf[i + j] & 0xFF);
+        }
+        return val;
+    }
+
+    /**
+     * 判断long中的8个字节是否都是'0'-'9'
+     * 每个字节的高4位必须是3，并且加上6之后高4位还是3(也就是低4位不超过9)
+     */
+    static boolean isEightDigits(long val) {
+        return (((val & 0xF0F0F0F0F0F0F0F0L)
+                | (((val + 0x0606060606060606L) & 0xF0F0F0F0F0F0F0F0L) >>> 4))
+                == 0x3333333333333333L);
+    }
+
+    /**
+     * 将long中的8个数字字符转为0-99999999的int，第一个字符(最低字节)是最高位
+     * 先把相邻的两个数字合成两位数，再把相邻的两位数合成四位数，最后合成八位数，只需要3次乘法
+     */
+    static int parseEightDigits(long val) {
+        val -= 0x3030303030303030L;
+        val = (val * 10) + (val >>> 8);
+        val = (((val & 0x000000FF000000FFL) * (100 + (1000000L << 32)))
+                + (((val >>> 16) & 0x000000FF000000FFL) * (1 + (10000L << 32)))) >>> 32;
+        return (int) val;
+    }
+
     /**
      * Parses the string argument as an unsigned integer in the radix
      * specified by the second argument.  An unsigned integer maps the
@@ -2,6 +2,7 @@ package com.zx.jdk.lang.basic;
 
 import java.lang.annotation.Native;
 import java.math.*;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
@@ -382,8 +383,6 @@ public final class Long extends Number implements Comparable<Long> {
      * Will fail if i == Long.MIN_VALUE
      */
     static void getChars(long i, int index, char[] buf) {
-        long q;
-        int r;
         int charPos = index;
         char sign = 0;
 
@@ -392,42 +391,152 @@ public final class Long extends Number implements Comparable<Long> {
             i = -i;
         }
 
-        // Get 2 digits/iteration using longs until quotient fits into an int
-        while (i > Integer.MAX_VALUE) {
-            q = i / 100;
-            // really: r = i - (q * 100);
-            r = (int)(i - ((q << 6) + (q << 5) + (q << 2)));
+        /*
+         * 不再用64位除法每次除以100：
+         * 先用乘以倒数的方法把long拆成若干个8位数字的int块(最多拆两次)，
+         * 每个块再用int的乘法拆成两位数，查DigitTens/DigitOnes表输出
+         */
+        if (i > Integer.MAX_VALUE) {
+            long q = divideBy100000000(i);
+            charPos = putEightDigits((int)(i - q * 100000000L), charPos, buf);
+            if (q > Integer.MAX_VALUE) {
+                long q2 = divideBy100000000(q);
+                charPos = putEightDigits((int)(q - q2 * 100000000L), charPos, buf);
+                q = q2;
+            }
             i = q;
-            buf[--charPos] = Integer.DigitOnes[r];
-            buf[--charPos] = Integer.DigitTens[r];
         }
 
-        // Get 2 digits/iteration using ints
-        int q2;
-        int i2 = (int)i;
-        while (i2 >= 65536) {
-            q2 = i2 / 100;
-            // really: r = i2 - (q * 100);
-            r = i2 - ((q2 << 6) + (q2 << 5) + (q2 << 2));
-            i2 = q2;
-            buf[--charPos] = Integer.DigitOnes[r];
-            buf[--charPos] = Integer.DigitTens[r];
+        // 剩下的部分可以用int处理，直接交给Integer
+        Integer.getChars((int)i, charPos, buf);
+        charPos -= Integer.stringSize((int)i);
+        if (sign != 0) {
+            buf[--charPos] = sign;
         }
+    }
+
+    /**
+     * 计算 n / 100000000，n不能为负数
+     * 用 n 乘以 2^90 / 10^8 (向上取整) 取高64位再右移26位代替除法，对所有非负的long都是精确的
+     */
+    static long divideBy100000000(long n) {
+        final long m = 0xABCC77118461CEFDL;
+        // 有符号的高64位乘法，再修正为无符号(m的最高位是1，所以加上n)
+        long n1 = n >>> 32, n2 = n & 0xFFFFFFFFL;
+        long m1 = m >> 32, m2 = m & 0xFFFFFFFFL;
+        long z2 = n2 * m2;
+        long t = n1 * m2 + (z2 >>> 32);
+        long z1 = (t & 0xFFFFFFFFL) + n2 * m1;
+        long hi = n1 * m1 + (t >> 32) + (z1 >> 32) + n;
+        return hi >>> 26;
+    }
+
+    /**
+     * 将0-99999999的v作为8位数字(不足8位补0)，从charPos往前写入buf，返回写完后的位置
+     * v / 10000 用 (v * 109951163) >>> 40 计算，4位数 / 100 用 (v * 5243) >>> 19 计算，都不需要除法
+     */
+    static int putEightDigits(int v, int charPos, char[] buf) {
+        int hi = (int)((v * 109951163L) >>> 40);
+        int lo = v - hi * 10000;
+        charPos = putFourDigits(lo, charPos, buf);
+        return putFourDigits(hi, charPos, buf);
+    }
+
+    //将0-9999的v作为4位数字，从charPos往前写入buf，返回写完后的位置
+    static int putFourDigits(int v, int charPos, char[] buf) {
+        int q = (v * 5243) >>> 19;
+        int r = v - q * 100;
+        buf[--charPos] = Integer.DigitOnes[r];
+        buf[--charPos] = Integer.DigitTens[r];
+        buf[--charPos] = Integer.DigitOnes[q];
+        buf[--charPos] = Integer.DigitTens[q];
+        return charPos;
+    }
+
+    //putEightDigits的byte[]版本
+    static int putEightDigits(int v, int charPos, byte[] buf) {
+        int hi = (int)((v * 109951163L) >>> 40);
+        int lo = v - hi * 10000;
+        charPos = putFourDigits(lo, charPos, buf);
+        return putFourDigits(hi, charPos, buf);
+    }
 
-        // Fall thru to fast mode for smaller numbers
-        // assert(i2 <= 65536, i2);
-        for (;;) {
-            q2 = (i2 * 52429) >>> (16+3);
-            r = i2 - ((q2 << 3) + (q2 << 1));  // r = i2-(q2*10) ...
-            buf[--charPos] = Integer.digits[r];
-            i2 = q2;
-            if (i2 == 0) break;
+    //putFourDigits的byte[]版本
+    static int putFourDigits(int v, int charPos, byte[] buf) {
+        int q = (v * 5243) >>> 19;
+        int r = v - q * 100;
+        buf[--charPos] = (byte) Integer.DigitOnes[r];
+        buf[--charPos] = (byte) Integer.DigitTens[r];
+        buf[--charPos] = (byte) Integer.DigitOnes[q];
+        buf[--charPos] = (byte) Integer.DigitTens[q];
+        return charPos;
+    }
+
+    /**
+     * 和getChars(long, int, char[])相同，只是以ASCII字节的形式存入byte[]
+     * 如果i==Long.MIN_VALUE将会失败
+     */
+    static void getBytes(long i, int index, byte[] buf) {
+        int charPos = index;
+        byte sign = 0;
+
+        if (i < 0) {
+            sign = '-';
+            i = -i;
+        }
+
+        if (i > Integer.MAX_VALUE) {
+            long q = divideBy100000000(i);
+            charPos = putEightDigits((int)(i - q * 100000000L), charPos, buf);
+            if (q > Integer.MAX_VALUE) {
+                long q2 = divideBy100000000(q);
+                charPos = putEightDigits((int)(q - q2 * 100000000L), charPos, buf);
+                q = q2;
+            }
+            i = q;
         }
+
+        // 剩下的部分可以用int处理，直接交给Integer
+        Integer.getBytes((int)i, charPos, buf);
+        charPos -= Integer.stringSize((int)i);
         if (sign != 0) {
             buf[--charPos] = sign;
         }
     }
 
+    /**
+     * 将i的十进制形式写入调用者提供的char[]，从off位置开始，返回写入后的下一个位置
+     * 和toString(long)的结果相同，但不会创建char[]和String
+     * buf中从off开始的空间不够时抛出IndexOutOfBoundsException，此时buf不会被修改
+     */
+    public static int formatDecimal(long i, char[] buf, int off) {
+        if (i == Long.MIN_VALUE) {
+            return Integer.putAscii("-9223372036854775808", buf, off);
+        }
+        int size = (i < 0) ? stringSize(-i) + 1 : stringSize(i);
+        if (off < 0 || off > buf.length - size) {
+            throw new IndexOutOfBoundsException();
+        }
+        getChars(i, off + size, buf);
+        return off + size;
+    }
+
+    /**
+     * 将i的十进制形式以ASCII字节写入调用者提供的byte[]，从off位置开始，返回写入后的下一个位置
+     * buf中从off开始的空间不够时抛出IndexOutOfBoundsException，此时buf不会被修改
+     */
+    public static int formatDecimal(long i, byte[] buf, int off) {
+        if (i == Long.MIN_VALUE) {
+            return Integer.putAscii("-9223372036854775808", buf, off);
+        }
+        int size = (i < 0) ? stringSize(-i) + 1 : stringSize(i);
+        if (off < 0 || off > buf.length - size) {
+            throw new IndexOutOfBoundsException();
+        }
+        getBytes(i, off + size, buf);
+        return off + size;
+    }
+
     //返回x的位数
     //需要为正数的x
     static int stringSize(long x) {
@@ -538,6 +647,13 @@ public final class Long extends Number implements Comparable<Long> {
                     throw NumberFormatException.forInputString(s);
                 i++;
             }
+            //十进制并且不超过18位数字时不会溢出，用Integer中的SWAR方法每8位一次解析；遇到非ASCII数字时回到下面的逐字符循环
+            if (radix == 10 && len - i <= 18) {
+                long v = Integer.parseDecimalDigits(s, i, len);
+                if (v >= 0) {
+                    return negative ? -v : v;
+                }
+            }
             multmin = limit / radix;
             while (i < len) {
                 // Accumulating negatively avoids surprises near MAX_VALUE
@@ -769,21 +885,56 @@ public final class Long extends Number implements Comparable<Long> {
     /**
      * Long的缓存静态内部类
      * 用于valueOf时，用空间换取时间
-     * 同样存储了 -128 - 127 的Long对象
+     * 默认存储了 -128 - 127 的Long对象，和IntegerCache一样，
+     * 上限可以在jvm启动时通过 java.lang.Long.LongCache.high 属性配置，不能小于127
+     *
+     * 启动时设置 java.lang.Long.LongCache.stats=true 后，valueOf会统计命中和未命中的次数，
+     * 用于根据实际的取值分布调整上限；没有开启时不会有任何额外开销
      */
     private static class LongCache {
-        private LongCache(){}
-
-        static final Long cache[] = new Long[-(-128) + 127 + 1];
+        static final int low = -128;
+        static final int high;
+        static final Long cache[];
+        //是否统计命中次数
+        static final boolean stats;
+        //命中缓存的次数
+        static final LongAdder hits = new LongAdder();
+        //未命中缓存，创建新对象的次数
+        static final LongAdder misses = new LongAdder();
 
         static {
-            for(int i = 0; i < cache.length; i++)
-                cache[i] = new Long(i - 128);
+            int h = 127;
+            //从类中获取jvm配置的属性,也就是最大值
+            String longCacheHighPropValue =
+                    sun.misc.VM.getSavedProperty("java.lang.Long.LongCache.high");
+            if (longCacheHighPropValue != null) {
+                try {
+                    int i = Integer.parseInt(longCacheHighPropValue);
+                    //自己配置的最大值不能小于127
+                    i = Math.max(i, 127);
+                    //最大数组大小是 Integer.MAX_VALUE
+                    h = Math.min(i, Integer.MAX_VALUE - (-low) -1);
+                } catch( NumberFormatException nfe) {
+                    //如果配置的属性无法解析为int，则忽略它
+                }
+            }
+            high = h;
+            stats = Boolean.parseBoolean(
+                    sun.misc.VM.getSavedProperty("java.lang.Long.LongCache.stats"));
+
+            cache = new Long[(high - low) + 1];
+            for(int k = 0; k < cache.length; k++)
+                cache[k] = new Long(k + low);
+
+            //范围[-128，127]必须被缓存，和之前的行为保持一致
+            assert LongCache.high >= 127;
         }
+
+        private LongCache(){}
     }
 
     /**
-     * 将long转为Long对象，如果在-128-127之间，则使用LongCache
+     * 将long转为Long对象，如果在缓存范围内(默认-128-127)，则使用LongCache
      * Returns a {@code Long} instance representing the specified
      * {@code long} value.
      * If a new {@code Long} instance is not required, this method
@@ -802,13 +953,33 @@ public final class Long extends Number implements Comparable<Long> {
      * @since  1.5
      */
     public static Long valueOf(long l) {
-        final int offset = 128;
-        if (l >= -128 && l <= 127) { // will cache
-            return LongCache.cache[(int)l + offset];
+        if (l >= LongCache.low && l <= LongCache.high) { // will cache
+            if (LongCache.stats) {
+                LongCache.hits.increment();
+            }
+            return LongCache.cache[(int)l - LongCache.low];
+        }
+        if (LongCache.stats) {
+            LongCache.misses.increment();
         }
         return new Long(l);
     }
 
+    //返回LongCache缓存的最大值
+    public static long getCacheHigh() {
+        return LongCache.high;
+    }
+
+    //返回valueOf(long)命中缓存的次数，没有开启 java.lang.Long.LongCache.stats 时始终为0
+    public static long getCacheHitCount() {
+        return LongCache.hits.sum();
+    }
+
+    //返回valueOf(long)未命中缓存的次数，没有开启 java.lang.Long.LongCache.stats 时始终为0
+    public static long getCacheMissCount() {
+        return LongCache.misses.sum();
+    }
+
     /**
      * 将string解码成Long
      * Decodes a {@code String} into a {@code Long}.
@@ -0,0 +1,106 @@
+package com.zx.jdk.util.primitive;
+
+import com.zx.jdk.io.FileInputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 堆外的double数组
+ * 每个元素用Double.doubleToRawLongBits()转为64位的位模式，保存在一个LongArray中，
+ * 读取时再用Double.longBitsToDouble()还原，所以NaN的位模式也会原样保留
+ * 分页、字节顺序、读写文件的方式都和LongArray相同
+ */
+public class DoubleArray implements Closeable {
+    //保存位模式的数组
+    private final LongArray bits;
+
+    //创建本地字节顺序的数组，所有元素为0.0
+    public DoubleArray(long length) {
+        this(new LongArray(length));
+    }
+
+    //创建指定字节顺序的数组，所有元素为0.0
+    public DoubleArray(long length, ByteOrder order) {
+        this(new LongArray(length, order));
+    }
+
+    //指定每页元素个数的位数，包内可见，用于测试
+    DoubleArray(long length, ByteOrder order, int pageShift) {
+        this(new LongArray(length, order, pageShift));
+    }
+
+    private DoubleArray(LongArray bits) {
+        this.bits = bits;
+    }
+
+    //返回元素个数
+    public long length() {
+        return bits.length();
+    }
+
+    //返回字节顺序
+    public ByteOrder order() {
+        return bits.order();
+    }
+
+    //返回index处的元素
+    public double get(long index) {
+        return Double.longBitsToDouble(bits.get(index));
+    }
+
+    //设置index处的元素
+    public void set(long index, double value) {
+        bits.set(index, Double.doubleToRawLongBits(value));
+    }
+
+    //将所有元素设置为value
+    public void fill(double value) {
+        bits.fill(Double.doubleToRawLongBits(value));
+    }
+
+    //从通道的当前位置开始读取length个元素
+    public void readFrom(ReadableByteChannel ch) throws IOException {
+        bits.readFrom(ch);
+    }
+
+    //从文件的position位置开始读取length个元素，不修改通道的当前位置
+    public void readFrom(FileChannel ch, long position) throws IOException {
+        bits.readFrom(ch, position);
+    }
+
+    //从文件输入流的当前位置开始读取length个元素
+    public void readFrom(FileInputStream in) throws IOException {
+        bits.readFrom(in);
+    }
+
+    //将所有元素写入通道的当前位置
+    public void writeTo(WritableByteChannel ch) throws IOException {
+        bits.writeTo(ch);
+    }
+
+    //将所有元素写入文件的position位置，不修改通道的当前位置
+    public void writeTo(FileChannel ch, long position) throws IOException {
+        bits.writeTo(ch, position);
+    }
+
+    //从文件的position位置加载count个元素，创建一个新的数组
+    public static DoubleArray load(FileChannel ch, long position, long count, ByteOrder order)
+            throws IOException {
+        return new DoubleArray(LongArray.load(ch, position, count, order));
+    }
+
+    //从文件输入流的当前位置加载count个元素，创建一个新的数组
+    public static DoubleArray load(FileInputStream in, long count, ByteOrder order) throws IOException {
+        return new DoubleArray(LongArray.load(in, count, order));
+    }
+
+    //丢弃所有的页，直接内存由GC回收，见LongArray.close()
+    public void close() {
+        bits.close();
+    }
+}
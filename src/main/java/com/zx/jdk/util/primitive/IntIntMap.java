@@ -0,0 +1,346 @@
+package com.zx.jdk.util.primitive;
+
+import com.zx.jdk.lang.basic.Integer;
+
+import java.util.Arrays;
+
+/**
+ * int到int的哈希表
+ * HashMap<Integer, Integer>中每个键值对要一个Node和两个Integer(超出IntegerCache范围时)，
+ * 该类把键和值直接存放在两个int[]中，put/get都不会装箱，也不会创建任何对象
+ *
+ * 1. 开放寻址，线性探测，数组长度为2的幂
+ * 2. 槽位由Integer.hashCode(int)乘以黄金分割数再扰动得到，避免连续的键聚集在一起
+ * 3. 键为0的槽位表示空，键0本身单独保存在hasZeroKey/zeroValue中
+ * 4. 删除时把后面的元素往前移(backward shift)，不使用删除标记，查找的探测长度不会因为删除而变长
+ * 5. 不存在的键，get()返回构造时指定的noEntryValue(默认为0)
+ *
+ * 和HashMap一样不是线程安全的
+ */
+public class IntIntMap {
+    //默认容量
+    private static final int DEFAULT_CAPACITY = 16;
+    //默认负载因子
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    //最大的数组长度
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    //2^32 / 黄金分割比
+    private static final int PHI = 0x9E3779B9;
+
+    /**
+     * 键值对的处理者，用于forEach()
+     */
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    //键，0表示空槽位
+    private int[] keys;
+    //值，和keys一一对应
+    private int[] values;
+    //是否包含键0
+    private boolean hasZeroKey;
+    //键0对应的值
+    private int zeroValue;
+    //数组中的键值对个数(不包括键0)
+    private int assigned;
+    //数组长度 - 1
+    private int mask;
+    //assigned达到它时，插入前先扩容
+    private int threshold;
+    //负载因子
+    private final float loadFactor;
+    //不存在的键对应的值
+    private final int noEntryValue;
+
+    //使用默认容量和负载因子创建
+    public IntIntMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    //创建能容纳expectedSize个键值对而不扩容的表
+    public IntIntMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /**
+     * 指定预期大小、负载因子和不存在的键对应的值
+     */
+    public IntIntMap(int expectedSize, float loadFactor, int noEntryValue) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " + expectedSize);
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(tableSizeFor(expectedSize, loadFactor));
+    }
+
+    //放下expected个元素而不扩容需要的数组长度
+    private static int tableSizeFor(int expected, float loadFactor) {
+        long n = (long) Math.ceil(expected / (double) loadFactor);
+        int cap = 2;
+        while (cap < n && cap < MAXIMUM_CAPACITY) {
+            cap <<= 1;
+        }
+        return cap;
+    }
+
+    //分配数组，至少保留一个空槽位，保证探测一定能结束
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    //计算键的起始槽位
+    private int slot(int key) {
+        int h = Integer.hashCode(key) * PHI;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    //返回键值对个数
+    public int size() {
+        return assigned + (hasZeroKey ? 1 : 0);
+    }
+
+    //是否为空
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    //返回不存在的键对应的值
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    //返回key对应的值，不存在时返回noEntryValue
+    public int get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    //返回key对应的值，不存在时返回defaultValue
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        final int[] keys = this.keys;
+        int i = slot(key);
+        int k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    //是否包含key
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        final int[] keys = this.keys;
+        int i = slot(key);
+        int k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    //放入键值对，返回之前的值，之前不存在时返回noEntryValue
+    public int put(int key, int value) {
+        if (key == 0) {
+            int prev = hasZeroKey ? zeroValue : noEntryValue;
+            hasZeroKey = true;
+            zeroValue = value;
+            return prev;
+        }
+        final int[] keys = this.keys;
+        int i = slot(key);
+        int k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                int prev = values[i];
+                values[i] = value;
+                return prev;
+            }
+            i = (i + 1) & mask;
+        }
+        //满了先扩容，再重新查找空槽位
+        if (assigned >= threshold) {
+            rehash(keys.length << 1);
+            return put(key, value);
+        }
+        keys[i] = key;
+        values[i] = value;
+        assigned++;
+        return noEntryValue;
+    }
+
+    /**
+     * 将key对应的值加上delta，不存在时从noEntryValue开始加，返回加完后的值
+     * 用于计数，相当于 put(key, get(key) + delta)，但只查找一次
+     */
+    public int addTo(int key, int delta) {
+        if (key == 0) {
+            zeroValue = (hasZeroKey ? zeroValue : noEntryValue) + delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        final int[] keys = this.keys;
+        int i = slot(key);
+        int k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                return values[i] += delta;
+            }
+            i = (i + 1) & mask;
+        }
+        if (assigned >= threshold) {
+            rehash(keys.length << 1);
+            return addTo(key, delta);
+        }
+        int v = noEntryValue + delta;
+        keys[i] = key;
+        values[i] = v;
+        assigned++;
+        return v;
+    }
+
+    //删除key，返回之前的值，不存在时返回noEntryValue
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            int prev = zeroValue;
+            zeroValue = 0;
+            return prev;
+        }
+        final int[] keys = this.keys;
+        int i = slot(key);
+        int k;
+        while ((k = keys[i]) != 0) {
+            if (k == key) {
+                int prev = values[i];
+                shiftKeys(i);
+                assigned--;
+                return prev;
+            }
+            i = (i + 1) & mask;
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * 删除gap处的元素后，把后面探测链上的元素往前移，填补空出来的槽位
+     * 一个元素只有在它的起始槽位不在 (gap, i] 之间时，才能移到gap
+     */
+    private void shiftKeys(int gap) {
+        final int[] keys = this.keys;
+        final int[] values = this.values;
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            int k = keys[i];
+            if (k == 0) {
+                break;
+            }
+            int home = slot(k);
+            if (gap <= i ? (home <= gap || home > i) : (home <= gap && home > i)) {
+                keys[gap] = k;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    //扩容并重新放入所有元素
+    private void rehash(int newCapacity) {
+        if (keys.length >= MAXIMUM_CAPACITY) {
+            //不能再扩容，用到只剩一个空槽位为止
+            if (threshold >= keys.length - 1) {
+                throw new IllegalStateException("Map too large");
+            }
+            threshold = keys.length - 1;
+            return;
+        }
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(newCapacity);
+        final int[] keys = this.keys;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int k = oldKeys[j];
+            if (k != 0) {
+                int i = slot(k);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    //删除所有元素，保留数组
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        assigned = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    //遍历所有键值对，顺序不确定
+    public void forEach(EntryConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        final int[] keys = this.keys;
+        final int[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    //返回所有键组成的数组，顺序和forEach()相同
+    public int[] keys() {
+        int[] result = new int[size()];
+        int n = 0;
+        if (hasZeroKey) {
+            result[n++] = 0;
+        }
+        for (int k : keys) {
+            if (k != 0) {
+                result[n++] = k;
+            }
+        }
+        return result;
+    }
+
+    //返回 {k1=v1, k2=v2} 形式的字符串
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+}
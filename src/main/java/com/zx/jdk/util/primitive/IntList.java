@@ -0,0 +1,205 @@
+package com.zx.jdk.util.primitive;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * int的动态数组
+ * 和ArrayList<Integer>相同的扩容方式(每次扩大1.5倍)，但元素直接存放在int[]中，add/get都不会装箱
+ *
+ * 和ArrayList一样不是线程安全的
+ */
+public class IntList {
+    //默认容量
+    private static final int DEFAULT_CAPACITY = 10;
+    //共享的空数组
+    private static final int[] EMPTY_ELEMENTDATA = {};
+    //数组的最大长度，一些虚拟机会在数组中保留头信息
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    //存放元素的数组
+    private int[] elementData;
+    //元素个数
+    private int size;
+
+    //创建空的列表，第一次添加时才分配数组
+    public IntList() {
+        this.elementData = EMPTY_ELEMENTDATA;
+    }
+
+    //指定初始容量创建列表
+    public IntList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        this.elementData = initialCapacity == 0 ? EMPTY_ELEMENTDATA : new int[initialCapacity];
+    }
+
+    //使用数组中的元素创建列表，会拷贝数组
+    public IntList(int[] a) {
+        this.elementData = a.length == 0 ? EMPTY_ELEMENTDATA : a.clone();
+        this.size = a.length;
+    }
+
+    //返回元素个数
+    public int size() {
+        return size;
+    }
+
+    //是否为空
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //确保至少能放下minCapacity个元素
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elementData.length) {
+            grow(minCapacity);
+        }
+    }
+
+    //扩容，新容量为原来的1.5倍，不够时使用minCapacity
+    private void grow(int minCapacity) {
+        if (minCapacity < 0) // overflow
+            throw new OutOfMemoryError();
+        int oldCapacity = elementData.length;
+        int newCapacity = oldCapacity + (oldCapacity >> 1);
+        if (newCapacity - minCapacity < 0)
+            newCapacity = Math.max(minCapacity, DEFAULT_CAPACITY);
+        if (newCapacity - MAX_ARRAY_SIZE > 0)
+            newCapacity = (minCapacity > MAX_ARRAY_SIZE) ? Integer.MAX_VALUE : MAX_ARRAY_SIZE;
+        elementData = Arrays.copyOf(elementData, newCapacity);
+    }
+
+    //将数组长度缩小为元素个数
+    public void trimToSize() {
+        if (size < elementData.length) {
+            elementData = (size == 0) ? EMPTY_ELEMENTDATA : Arrays.copyOf(elementData, size);
+        }
+    }
+
+    //检查下标
+    private void rangeCheck(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    //返回index处的元素
+    public int get(int index) {
+        rangeCheck(index);
+        return elementData[index];
+    }
+
+    //替换index处的元素，返回原来的元素
+    public int set(int index, int element) {
+        rangeCheck(index);
+        int oldValue = elementData[index];
+        elementData[index] = element;
+        return oldValue;
+    }
+
+    //在末尾添加元素
+    public void add(int e) {
+        if (size == elementData.length) {
+            grow(size + 1);
+        }
+        elementData[size++] = e;
+    }
+
+    //在index处插入元素，后面的元素往后移
+    public void add(int index, int element) {
+        if (index > size || index < 0)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (size == elementData.length) {
+            grow(size + 1);
+        }
+        System.arraycopy(elementData, index, elementData, index + 1, size - index);
+        elementData[index] = element;
+        size++;
+    }
+
+    //在末尾添加数组a中从off开始的len个元素
+    public void addAll(int[] a, int off, int len) {
+        if (off < 0 || len < 0 || len > a.length - off)
+            throw new IndexOutOfBoundsException();
+        ensureCapacity(size + len);
+        System.arraycopy(a, off, elementData, size, len);
+        size += len;
+    }
+
+    //删除index处的元素，返回被删除的元素
+    public int removeAt(int index) {
+        rangeCheck(index);
+        int oldValue = elementData[index];
+        int numMoved = size - index - 1;
+        if (numMoved > 0)
+            System.arraycopy(elementData, index + 1, elementData, index, numMoved);
+        size--;
+        return oldValue;
+    }
+
+    //返回第一个等于o的元素的下标，没有时返回-1
+    public int indexOf(int o) {
+        for (int i = 0; i < size; i++)
+            if (elementData[i] == o)
+                return i;
+        return -1;
+    }
+
+    //返回最后一个等于o的元素的下标，没有时返回-1
+    public int lastIndexOf(int o) {
+        for (int i = size - 1; i >= 0; i--)
+            if (elementData[i] == o)
+                return i;
+        return -1;
+    }
+
+    //是否包含o
+    public boolean contains(int o) {
+        return indexOf(o) >= 0;
+    }
+
+    //删除所有元素，保留数组
+    public void clear() {
+        size = 0;
+    }
+
+    //升序排序
+    public void sort() {
+        Arrays.sort(elementData, 0, size);
+    }
+
+    //按顺序遍历所有元素
+    public void forEach(IntConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        final int[] elementData = this.elementData;
+        final int size = this.size;
+        for (int i = 0; i < size; i++) {
+            action.accept(elementData[i]);
+        }
+    }
+
+    //返回所有元素组成的流
+    public IntStream stream() {
+        return Arrays.stream(elementData, 0, size);
+    }
+
+    //返回所有元素组成的新数组
+    public int[] toArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    //返回 [e1, e2] 形式的字符串
+    public String toString() {
+        if (size == 0)
+            return "[]";
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(elementData[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
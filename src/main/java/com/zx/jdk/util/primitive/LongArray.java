@@ -0,0 +1,230 @@
+package com.zx.jdk.util.primitive;
+
+import com.zx.jdk.io.FileInputStream;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 堆外的long数组
+ * 元素存放在直接内存中，不占用堆，也不会被GC扫描和复制；下标是long，长度可以超过Integer.MAX_VALUE
+ *
+ * 1. 一个直接缓冲区最多2G字节，所以数组被分成若干页，每页2^27个元素(1G字节)，最后一页按实际长度分配
+ * 2. 内存中的字节顺序由order指定，和文件中的格式完全一致，所以从文件加载、写入文件都只是整页的字节拷贝，
+ *    由通道直接在直接内存和文件之间传输，不经过堆上的数组
+ * 3. 缓冲区本身使用本地字节顺序读写，order和本地字节顺序不同时，用Long.reverseBytes()转换(和java.nio.Bits的做法一样)
+ * 4. close()只是丢弃对页的引用，直接内存在缓冲区不可达后由GC回收；不会立即释放，
+ *    因为同时读取的线程可能还持有旧的页，立即释放会让它们访问已经释放的内存，导致JVM崩溃
+ *
+ * 不是线程安全的，但是不同的线程可以同时读取；close()之后的访问抛出IndexOutOfBoundsException
+ */
+public class LongArray implements Closeable {
+    //默认每页元素个数的位数，每页1G字节
+    private static final int DEFAULT_PAGE_SHIFT = 27;
+
+    //每页元素个数的位数
+    private final int pageShift;
+    //页内下标的掩码
+    private final long pageMask;
+    //所有的页，都是本地字节顺序的直接缓冲区；volatile保证close()后其他线程能看到空的页数组
+    private volatile ByteBuffer[] pages;
+    //元素个数，close()后为0
+    private volatile long length;
+    //数组的字节顺序，也就是读写文件时的格式
+    private final ByteOrder order;
+    //order是否和本地字节顺序不同
+    private final boolean swap;
+
+    //创建本地字节顺序的数组，所有元素为0
+    public LongArray(long length) {
+        this(length, ByteOrder.nativeOrder());
+    }
+
+    //创建指定字节顺序的数组，所有元素为0
+    public LongArray(long length, ByteOrder order) {
+        this(length, order, DEFAULT_PAGE_SHIFT);
+    }
+
+    //指定每页元素个数的位数，包内可见，测试时用很小的页来跨越页边界
+    LongArray(long length, ByteOrder order, int pageShift) {
+        if (length < 0)
+            throw new IllegalArgumentException("Illegal length: " + length);
+        if (order == null)
+            throw new NullPointerException();
+        if (pageShift < 0 || pageShift > DEFAULT_PAGE_SHIFT)
+            throw new IllegalArgumentException("Illegal page shift: " + pageShift);
+        this.order = order;
+        this.swap = order != ByteOrder.nativeOrder();
+        this.pageShift = pageShift;
+        this.pageMask = (1L << pageShift) - 1;
+        int n = (int) ((length + pageMask) >>> pageShift);
+        ByteBuffer[] pages = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            long remaining = length - ((long) i << pageShift);
+            int size = (int) Math.min(remaining, 1L << pageShift);
+            pages[i] = ByteBuffer.allocateDirect(size << 3).order(ByteOrder.nativeOrder());
+        }
+        this.pages = pages;
+        this.length = length;
+    }
+
+    //返回元素个数
+    public long length() {
+        return length;
+    }
+
+    //返回字节顺序
+    public ByteOrder order() {
+        return order;
+    }
+
+    /**
+     * 返回index所在的页，下标越界时抛出IndexOutOfBoundsException
+     * 和close()同时执行时，可能看到旧的长度和新的空页数组，这时也是下标越界
+     */
+    private ByteBuffer pageOf(long index) {
+        long length = this.length;
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        ByteBuffer[] pages = this.pages;
+        int i = (int) (index >>> pageShift);
+        if (i >= pages.length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: 0");
+        return pages[i];
+    }
+
+    //返回index处的元素
+    public long get(long index) {
+        long v = pageOf(index).getLong((int) (index & pageMask) << 3);
+        return swap ? Long.reverseBytes(v) : v;
+    }
+
+    //设置index处的元素
+    public void set(long index, long value) {
+        pageOf(index).putLong((int) (index & pageMask) << 3,
+                swap ? Long.reverseBytes(value) : value);
+    }
+
+    //将所有元素设置为value
+    public void fill(long value) {
+        long v = swap ? Long.reverseBytes(value) : value;
+        for (ByteBuffer page : pages) {
+            int end = page.capacity();
+            for (int off = 0; off < end; off += 8) {
+                page.putLong(off, v);
+            }
+        }
+    }
+
+    //返回页的一个视图，position为0，limit为该页的字节数
+    private static ByteBuffer page(ByteBuffer p) {
+        ByteBuffer b = p.duplicate();
+        b.clear();
+        return b;
+    }
+
+    /**
+     * 从通道的当前位置开始读取length个元素，读完后通道的位置前进 length * 8 个字节
+     * 通道中的数据不够时抛出EOFException
+     */
+    public void readFrom(ReadableByteChannel ch) throws IOException {
+        for (ByteBuffer p : pages) {
+            ByteBuffer b = page(p);
+            while (b.hasRemaining()) {
+                if (ch.read(b) < 0) {
+                    throw new EOFException();
+                }
+            }
+        }
+    }
+
+    /**
+     * 从文件的position位置开始读取length个元素，不修改通道的当前位置
+     * 文件中的数据不够时抛出EOFException
+     */
+    public void readFrom(FileChannel ch, long position) throws IOException {
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        for (ByteBuffer p : pages) {
+            ByteBuffer b = page(p);
+            while (b.hasRemaining()) {
+                int n = ch.read(b, position);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                position += n;
+            }
+        }
+    }
+
+    //从文件输入流的当前位置开始读取length个元素
+    public void readFrom(FileInputStream in) throws IOException {
+        readFrom(in.getChannel());
+    }
+
+    //将所有元素写入通道的当前位置
+    public void writeTo(WritableByteChannel ch) throws IOException {
+        for (ByteBuffer p : pages) {
+            ByteBuffer b = page(p);
+            while (b.hasRemaining()) {
+                ch.write(b);
+            }
+        }
+    }
+
+    //将所有元素写入文件的position位置，不修改通道的当前位置
+    public void writeTo(FileChannel ch, long position) throws IOException {
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        for (ByteBuffer p : pages) {
+            ByteBuffer b = page(p);
+            while (b.hasRemaining()) {
+                position += ch.write(b, position);
+            }
+        }
+    }
+
+    /**
+     * 从文件的position位置加载count个元素，创建一个新的数组
+     * 文件中的数据按order的字节顺序解释
+     */
+    public static LongArray load(FileChannel ch, long position, long count, ByteOrder order)
+            throws IOException {
+        LongArray a = new LongArray(count, order);
+        try {
+            a.readFrom(ch, position);
+        } catch (IOException | RuntimeException ex) {
+            a.close();
+            throw ex;
+        }
+        return a;
+    }
+
+    //从文件输入流的当前位置加载count个元素，创建一个新的数组
+    public static LongArray load(FileInputStream in, long count, ByteOrder order) throws IOException {
+        LongArray a = new LongArray(count, order);
+        try {
+            a.readFrom(in);
+        } catch (IOException | RuntimeException ex) {
+            a.close();
+            throw ex;
+        }
+        return a;
+    }
+
+    /**
+     * 丢弃所有的页，之后长度为0，再访问任何元素都会抛出IndexOutOfBoundsException
+     * 直接内存不会立即释放，而是在所有线程都不再持有这些页之后由GC回收，
+     * 这样和close()同时执行的读取不会访问到已经释放的内存
+     */
+    public void close() {
+        length = 0;
+        pages = new ByteBuffer[0];
+    }
+}
@@ -0,0 +1,149 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * readInts()、readLongs()、readDoubles()的测试，结果和ByteBuffer按同样的字节顺序解码的结果比较
+ */
+public class BufferedInputStreamTest {
+
+    //随机数据，每次最多返回几个字节，让fill()在值的中间被调用
+    private static BufferedInputStream stream(byte[] data, int size, Random r) {
+        return new BufferedInputStream(new ByteArrayInputStream(data) {
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1 + r.nextInt(11)));
+            }
+        }, size);
+    }
+
+    private static byte[] random(int n, Random r) {
+        byte[] data = new byte[n];
+        r.nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void valuesStraddlingRefill() throws IOException {
+        Random r = new Random(1);
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            //缓冲区大小不是4和8的倍数，先读掉1个字节，值会跨越缓冲区的末尾
+            for (int size = 1; size <= 19; size++) {
+                byte[] data = random(1 + 4 * 50 + 8 * 50 + 8 * 50, r);
+                ByteBuffer expected = ByteBuffer.wrap(data).order(order);
+                BufferedInputStream in = stream(data, size, r);
+                assertEquals(data[0] & 0xff, in.read());
+                expected.get();
+
+                int[] ints = new int[52];
+                in.readInts(ints, 1, 50, order);
+                int[] expectedInts = new int[52];
+                expected.asIntBuffer().get(expectedInts, 1, 50);
+                expected.position(expected.position() + 4 * 50);
+                assertArrayEquals(expectedInts, ints);
+
+                long[] longs = new long[50];
+                in.readLongs(longs, 0, 50, order);
+                long[] expectedLongs = new long[50];
+                expected.asLongBuffer().get(expectedLongs);
+                expected.position(expected.position() + 8 * 50);
+                assertArrayEquals(expectedLongs, longs);
+
+                double[] doubles = new double[51];
+                in.readDoubles(doubles, 1, 50, order);
+                for (int i = 0; i < 50; i++) {
+                    //按位比较，NaN的位模式也要保留
+                    assertEquals(expected.getLong(),
+                            java.lang.Double.doubleToRawLongBits(doubles[i + 1]));
+                }
+                assertEquals(0.0, doubles[0], 0.0);
+                assertEquals(-1, in.read());
+            }
+        }
+    }
+
+    @Test
+    public void littleEndian() throws IOException {
+        byte[] data = {1, 2, 3, 4, 1, 2, 3, 4, 5, 6, 7, 8, 0, 0, 0, 0, 0, 0, (byte) 0xf0, 0x3f};
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(data), 6);
+        int[] ints = new int[1];
+        in.readInts(ints, 0, 1, ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x04030201, ints[0]);
+        long[] longs = new long[1];
+        in.readLongs(longs, 0, 1, ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x0807060504030201L, longs[0]);
+        double[] doubles = new double[1];
+        in.readDoubles(doubles, 0, 1, ByteOrder.LITTLE_ENDIAN);
+        assertEquals(1.0, doubles[0], 0.0);
+    }
+
+    @Test
+    public void truncatedStreamThrowsEOFException() throws IOException {
+        Random r = new Random(2);
+        for (int size = 1; size <= 9; size++) {
+            try {
+                stream(random(4 * 10 + 3, r), size, r).readInts(new int[11], 0, 11, ByteOrder.BIG_ENDIAN);
+                fail();
+            } catch (EOFException expected) {
+            }
+            try {
+                stream(random(8 * 10 + 7, r), size, r).readLongs(new long[11], 0, 11, ByteOrder.LITTLE_ENDIAN);
+                fail();
+            } catch (EOFException expected) {
+            }
+            try {
+                stream(random(8 * 10 + 1, r), size, r).readDoubles(new double[11], 0, 11, ByteOrder.BIG_ENDIAN);
+                fail();
+            } catch (EOFException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void invalidArguments() throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(new byte[64]));
+        try {
+            in.readInts(new int[4], 0, 1, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            in.readLongs(new long[4], 0, 1, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            in.readDoubles(new double[4], 0, 1, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        try {
+            in.readLongs(new long[4], 2, 3, ByteOrder.BIG_ENDIAN);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            in.readDoubles(new double[4], -1, 1, ByteOrder.BIG_ENDIAN);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        //参数错误时不读取任何数据
+        assertEquals(64, in.available());
+        in.close();
+        try {
+            in.readInts(new int[1], 0, 1, ByteOrder.BIG_ENDIAN);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
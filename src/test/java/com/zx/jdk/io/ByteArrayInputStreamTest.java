@@ -0,0 +1,133 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ByteArrayInputStreamTest {
+
+    //0, 1, 2, ... n-1
+    static byte[] data(int n) {
+        byte[] data = new byte[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    //视图中剩余的字节依次为from, from+1, ...
+    static void assertSlice(ByteBuffer slice, int from, int length) {
+        assertEquals(length, slice.remaining());
+        for (int i = 0; i < length; i++) {
+            assertEquals((byte) (from + i), slice.get(slice.position() + i));
+        }
+    }
+
+    //用同一个视图分帧读取，最后一帧不足n个字节，读完后视图为空
+    static void checkReusedView(ByteArrayInputStream in) {
+        ByteBuffer view = in.newView();
+        assertTrue(view.isReadOnly());
+        assertSame(view, in.readSlice(4, view));
+        assertSlice(view, 2, 4);
+        assertEquals(4, in.available());
+        assertSame(view, in.readSlice(3, view));
+        assertSlice(view, 6, 3);
+        assertSame(view, in.readSlice(5, view));
+        assertSlice(view, 9, 1);
+        assertSame(view, in.readSlice(5, view));
+        assertEquals(0, view.remaining());
+        assertEquals(-1, in.read());
+    }
+
+    //只接受该流最近一次newView()返回的视图
+    static void checkForeignViews(ByteArrayInputStream in, ByteArrayInputStream other) {
+        ByteBuffer stale = in.newView();
+        ByteBuffer view = in.newView();
+        assertNotSame(stale, view);
+        ByteBuffer[] foreign = {
+                stale, other.newView(), ByteBuffer.wrap(in.buf), ByteBuffer.wrap(in.buf, 2, 4),
+                ByteBuffer.wrap(new byte[in.buf.length]).asReadOnlyBuffer(), ByteBuffer.allocateDirect(in.buf.length),
+        };
+        for (ByteBuffer b : foreign) {
+            try {
+                in.readSlice(1, b);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        try {
+            in.readSlice(1, null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+        //被拒绝的调用不能移动pos
+        assertEquals(2, in.read());
+        assertEquals(1, in.readSlice(1, view).remaining());
+        //buf[]被替换后，之前的视图不再有效
+        in.buf = data(10);
+        try {
+            in.readSlice(1, view);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    //每次返回新的视图，不影响之前返回的视图
+    static void checkNewSlices(ByteArrayInputStream in) {
+        ByteBuffer first = in.readSlice(3);
+        ByteBuffer second = in.readSlice(100);
+        assertNotSame(first, second);
+        assertTrue(first.isReadOnly());
+        assertSlice(first, 2, 3);
+        assertSlice(second, 5, 5);
+        assertEquals(0, in.readSlice(1).remaining());
+        try {
+            in.readSlice(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void readSliceReusesView() {
+        checkReusedView(new ByteArrayInputStream(data(12), 2, 8));
+    }
+
+    @Test
+    public void readSliceRejectsForeignViews() {
+        checkForeignViews(new ByteArrayInputStream(data(12), 2, 8), new ByteArrayInputStream(data(12)));
+    }
+
+    @Test
+    public void readSliceReturnsNewViews() {
+        checkNewSlices(new ByteArrayInputStream(data(12), 2, 8));
+    }
+
+    @Test
+    public void sliceDoesNotCopy() {
+        byte[] buf = data(8);
+        ByteArrayInputStream in = new ByteArrayInputStream(buf);
+        ByteBuffer slice = in.readSlice(4);
+        buf[1] = 42;
+        assertEquals(42, slice.get(1));
+    }
+
+    @Test
+    public void markResetAfterSlice() {
+        ByteArrayInputStream in = new ByteArrayInputStream(data(10));
+        in.readSlice(2);
+        in.mark(0);
+        ByteBuffer view = in.newView();
+        assertSlice(in.readSlice(5, view), 2, 5);
+        in.reset();
+        assertEquals(2, in.read());
+        assertEquals(7, in.skip(100));
+        assertEquals(0, in.available());
+    }
+}
@@ -0,0 +1,141 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentPipeTest {
+
+    private static final int CAPACITY = 64;
+
+    //启动一个写线程，写入blocks次，每次是填满fill的size个字节
+    private static Thread writer(OutputStream out, byte fill, int size, int blocks) {
+        Thread t = new Thread(() -> {
+            byte[] b = new byte[size];
+            Arrays.fill(b, fill);
+            try {
+                for (int i = 0; i < blocks; i++) {
+                    out.write(b, 0, size);
+                }
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        t.start();
+        return t;
+    }
+
+    @Test(timeout = 30000)
+    public void writesUpToCapacityAreNotInterleaved() throws Exception {
+        ConcurrentPipe pipe = new ConcurrentPipe(CAPACITY, ConcurrentPipe.Overflow.BLOCK);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 1; w <= 4; w++) {
+            writers.add(writer(pipe.getOutputStream(), (byte) w, CAPACITY, 500));
+        }
+        InputStream in = pipe.getInputStream();
+        byte[] window = new byte[CAPACITY];
+        byte[] b = new byte[37];
+        int filled = 0;
+        long total = 0;
+        int n;
+        //写线程结束后关闭写入端
+        new Thread(() -> {
+            try {
+                for (Thread t : writers) {
+                    t.join();
+                }
+                pipe.getOutputStream().close();
+            } catch (InterruptedException | IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }).start();
+        while ((n = in.read(b, 0, b.length)) > 0) {
+            for (int i = 0; i < n; i++) {
+                window[filled++] = b[i];
+                if (filled == CAPACITY) {
+                    //每个按容量对齐的窗口只能来自同一次写入
+                    for (byte x : window) {
+                        assertEquals(window[0], x);
+                    }
+                    filled = 0;
+                }
+            }
+            total += n;
+        }
+        assertEquals(4L * 500 * CAPACITY, total);
+        assertEquals(0, filled);
+    }
+
+    @Test(timeout = 30000)
+    public void singleByteReadsAndWritesFromManyThreads() throws Exception {
+        ConcurrentPipe pipe = new ConcurrentPipe(CAPACITY, ConcurrentPipe.Overflow.BLOCK);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            Thread t = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        pipe.getOutputStream().write(i);
+                    }
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+            t.start();
+            writers.add(t);
+        }
+        long[] sums = new long[2];
+        Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            final int id = r;
+            readers[r] = new Thread(() -> {
+                try {
+                    int c;
+                    while ((c = pipe.getInputStream().read()) >= 0) {
+                        sums[id] += c;
+                    }
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+            readers[r].start();
+        }
+        for (Thread t : writers) {
+            t.join();
+        }
+        pipe.getOutputStream().close();
+        for (Thread t : readers) {
+            t.join();
+        }
+        long expected = 0;
+        for (int i = 0; i < 10000; i++) {
+            expected += i & 0xFF;
+        }
+        assertEquals(4 * expected, sums[0] + sums[1]);
+    }
+
+    @Test
+    public void dropDiscardsWholeWrite() throws IOException {
+        ConcurrentPipe pipe = new ConcurrentPipe(CAPACITY, ConcurrentPipe.Overflow.DROP);
+        OutputStream out = pipe.getOutputStream();
+        out.write(new byte[CAPACITY - 10]);
+        out.write(new byte[20]);
+        out.write(new byte[CAPACITY + 1]);
+        assertEquals(CAPACITY - 10, pipe.getInputStream().available());
+        assertEquals(20 + CAPACITY + 1, pipe.droppedBytes());
+    }
+
+    @Test(expected = IOException.class)
+    public void failRejectsWriteThatDoesNotFit() throws IOException {
+        ConcurrentPipe pipe = new ConcurrentPipe(CAPACITY, ConcurrentPipe.Overflow.FAIL);
+        OutputStream out = pipe.getOutputStream();
+        out.write(new byte[CAPACITY]);
+        assertEquals(CAPACITY, pipe.getInputStream().available());
+        out.write(1);
+    }
+}
@@ -0,0 +1,138 @@
+package com.zx.jdk.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DirectBufferedInputStreamTest {
+
+    private Path file;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[10_000];
+        new Random(2).nextBytes(data);
+        file = Files.createTempFile("direct", ".bin");
+        Files.write(file, data);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    //每隔一次读取返回0，其余时候最多读取7个字节
+    private static final class StutteringChannel implements ReadableByteChannel {
+        final ByteBuffer src;
+        boolean stall = true;
+
+        StutteringChannel(byte[] data) {
+            src = ByteBuffer.wrap(data);
+        }
+
+        public int read(ByteBuffer dst) {
+            if (!src.hasRemaining()) {
+                return -1;
+            }
+            stall = !stall;
+            if (!stall) {
+                return 0;
+            }
+            int n = Math.min(7, Math.min(dst.remaining(), src.remaining()));
+            for (int i = 0; i < n; i++) {
+                dst.put(src.get());
+            }
+            return n;
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    }
+
+    @Test
+    public void zeroByteChannelReadIsNotEndOfStream() throws IOException {
+        DirectBufferedInputStream in = new DirectBufferedInputStream(new StutteringChannel(data), 16);
+        assertEquals(data[0] & 0xff, in.read());
+        byte[] out = new byte[data.length];
+        out[0] = data[0];
+        int n = 1;
+        int k;
+        while ((k = in.read(out, n, out.length - n)) > 0) {
+            n += k;
+        }
+        assertEquals(data.length, n);
+        assertArrayEquals(data, out);
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void availableIncludesRemainingFileBytes() throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            DirectBufferedInputStream in = new DirectBufferedInputStream(ch, 64);
+            assertEquals(data.length, in.available());
+            in.read();
+            //缓冲区中63个，通道中剩余data.length - 64个
+            assertEquals(data.length - 1, in.available());
+            in.skip(10);
+            assertEquals(data.length - 11, in.available());
+        }
+    }
+
+    @Test
+    public void availableOfOtherChannelsIsBufferedBytes() throws IOException {
+        DirectBufferedInputStream in = new DirectBufferedInputStream(new StutteringChannel(data), 16);
+        assertEquals(0, in.available());
+        in.read();
+        assertEquals(6, in.available());
+    }
+
+    @Test
+    public void resetAfterBufferGrowth() throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            DirectBufferedInputStream in = new DirectBufferedInputStream(ch, 8);
+            in.skip(3);
+            in.mark(1000);
+            byte[] first = new byte[500];
+            int n = 0;
+            while (n < first.length) {
+                n += in.read(first, n, first.length - n);
+            }
+            in.reset();
+            for (int i = 0; i < first.length; i++) {
+                assertEquals(data[3 + i], first[i]);
+                assertEquals(first[i] & 0xff, in.read());
+            }
+        }
+    }
+
+    @Test(expected = IllegalBlockingModeException.class)
+    public void nonBlockingChannelIsRejected() throws IOException {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.source().configureBlocking(false);
+            new DirectBufferedInputStream(pipe.source(), 16).read();
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.zx.jdk.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FileDescriptor本身依赖本地库，这里用普通对象作为被引用对象，替换Closer记录被关闭的fd
+ */
+public class FileCleanableTest {
+
+    private final Set<Integer> closed = ConcurrentHashMap.newKeySet();
+    private FileCleanable.Closer saved;
+
+    @Before
+    public void setUp() {
+        saved = FileCleanable.closer;
+        FileCleanable.closer = (fd, handle) -> closed.add(fd);
+    }
+
+    @After
+    public void tearDown() {
+        FileCleanable.closer = saved;
+    }
+
+    //触发GC，直到fd被关闭或者超时
+    private boolean awaitClosed(int fd) throws InterruptedException {
+        for (int i = 0; i < 100 && !closed.contains(fd); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return closed.contains(fd);
+    }
+
+    private static void register(int fd) {
+        FileCleanable.register(new Object(), fd, -1);
+    }
+
+    @Test
+    public void unreachableReferentClosesFd() throws InterruptedException {
+        register(5);
+        assertTrue(awaitClosed(5));
+    }
+
+    @Test
+    public void reachableReferentKeepsFdOpen() throws InterruptedException {
+        Object referent = new Object();
+        FileCleanable.register(referent, 6, -1);
+        register(7);
+        assertTrue(awaitClosed(7));
+        assertFalse(closed.contains(6));
+        //保持referent强可达直到这里
+        assertNotNull(referent);
+    }
+
+    @Test
+    public void unregisteredCleanableDoesNotClose() throws InterruptedException {
+        FileCleanable.register(new Object(), 8, -1).unregister();
+        register(9);
+        assertTrue(awaitClosed(9));
+        assertFalse(closed.contains(8));
+    }
+}
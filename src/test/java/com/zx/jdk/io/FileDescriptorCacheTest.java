@@ -0,0 +1,298 @@
+package com.zx.jdk.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * FileInputStream依赖本地库，这里替换Opener：用FileChannel打开文件，用引用计数模拟共享的文件描述符，
+ * 缓存和每个Reader各持有一次引用，最后一次引用关闭时才关闭通道
+ */
+public class FileDescriptorCacheTest {
+
+    //一个打开的文件，相当于FileDescriptor和它的引用计数
+    private static final class OpenFile implements Closeable {
+        final String name;
+        final FileChannel channel;
+        int refs = 1;
+
+        OpenFile(String name) throws IOException {
+            this.name = name;
+            this.channel = FileChannel.open(java.nio.file.Paths.get(name));
+        }
+
+        synchronized void acquire() throws IOException {
+            if (refs == 0) {
+                throw new IOException("already closed: " + name);
+            }
+            refs++;
+        }
+
+        //缓存持有的引用被关闭
+        public synchronized void close() throws IOException {
+            if (--refs == 0) {
+                channel.close();
+            }
+        }
+    }
+
+    //按顺序记录每次打开的文件
+    private final List<OpenFile> opened = new ArrayList<>();
+
+    private final FileDescriptorCache.Opener opener = new FileDescriptorCache.Opener() {
+        public Closeable open(String name) throws IOException {
+            OpenFile f = new OpenFile(name);
+            opened.add(f);
+            return f;
+        }
+
+        public FileDescriptorCache.Reader newReader(Closeable opened) throws IOException {
+            OpenFile f = (OpenFile) opened;
+            f.acquire();
+            return new FileDescriptorCache.Reader(f, f.channel);
+        }
+    };
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("fdcache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (OpenFile f : opened) {
+            f.channel.close();
+        }
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.delete(p);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private String file(String name, String content) throws IOException {
+        Path p = dir.resolve(name);
+        Files.write(p, content.getBytes(StandardCharsets.UTF_8));
+        return p.toString();
+    }
+
+    private static String readAll(FileDescriptorCache.Reader r) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = r.read()) != -1) {
+            sb.append((char) c);
+        }
+        return sb.toString();
+    }
+
+    //该文件被打开的次数
+    private int openCount(String name) {
+        int n = 0;
+        for (OpenFile f : opened) {
+            if (f.name.equals(name)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    //最近一次打开的该文件
+    private OpenFile last(String name) {
+        for (int i = opened.size() - 1; i >= 0; i--) {
+            if (opened.get(i).name.equals(name)) {
+                return opened.get(i);
+            }
+        }
+        throw new AssertionError(name);
+    }
+
+    @Test
+    public void hitsDoNotReopen() throws IOException {
+        String a = file("a", "abc");
+        FileDescriptorCache cache = new FileDescriptorCache(4, opener);
+        try (FileDescriptorCache.Reader r1 = cache.open(a); FileDescriptorCache.Reader r2 = cache.open(a)) {
+            assertEquals(1, openCount(a));
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.getHitCount());
+            //每个Reader有自己的读取位置
+            assertEquals('a', r1.read());
+            assertEquals("abc", readAll(r2));
+            assertEquals("bc", readAll(r1));
+        }
+        //缓存还持有一次引用
+        assertEquals(1, last(a).refs);
+        assertTrue(last(a).channel.isOpen());
+        cache.close();
+        assertFalse(last(a).channel.isOpen());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        String a = file("a", "a");
+        String b = file("b", "b");
+        String c = file("c", "c");
+        FileDescriptorCache cache = new FileDescriptorCache(2, opener);
+        cache.open(a).close();
+        cache.open(b).close();
+        //再次打开a，b成为最久没有使用的文件
+        cache.open(a).close();
+        cache.open(c).close();
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+        assertFalse(last(b).channel.isOpen());
+        assertTrue(last(a).channel.isOpen());
+        assertTrue(last(c).channel.isOpen());
+
+        //a还在缓存中，b要重新打开，并淘汰现在最久没有使用的c
+        cache.open(a).close();
+        assertEquals(1, openCount(a));
+        cache.open(b).close();
+        assertEquals(2, openCount(b));
+        assertFalse(last(c).channel.isOpen());
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(0, cache.getInvalidationCount());
+        cache.close();
+    }
+
+    @Test
+    public void boundedByMaxOpen() throws IOException {
+        FileDescriptorCache cache = new FileDescriptorCache(3, opener);
+        for (int i = 0; i < 10; i++) {
+            cache.open(file("f" + i, "x")).close();
+            assertTrue(cache.size() <= 3);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.maxOpen());
+        assertEquals(7, cache.getEvictionCount());
+        int open = 0;
+        for (OpenFile f : opened) {
+            if (f.channel.isOpen()) {
+                open++;
+            }
+        }
+        assertEquals(3, open);
+        cache.close();
+        for (OpenFile f : opened) {
+            assertFalse(f.channel.isOpen());
+        }
+    }
+
+    @Test
+    public void readersUsableAfterEviction() throws IOException {
+        String a = file("a", "first");
+        String b = file("b", "second");
+        FileDescriptorCache cache = new FileDescriptorCache(1, opener);
+        FileDescriptorCache.Reader r = cache.open(a);
+        assertEquals('f', r.read());
+        //打开b淘汰了a，缓存的引用被关闭，但r的引用还在
+        cache.open(b).close();
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, last(a).refs);
+        assertEquals("irst", readAll(r));
+        assertEquals(5, r.size());
+        r.close();
+        assertFalse(last(a).channel.isOpen());
+        //重复关闭不会再减少引用
+        r.close();
+        assertEquals(0, last(a).refs);
+        try {
+            r.read();
+            fail();
+        } catch (IOException expected) {
+        }
+        cache.close();
+    }
+
+    @Test
+    public void invalidatesReplacedFile() throws IOException {
+        String a = file("a", "old");
+        FileDescriptorCache cache = new FileDescriptorCache(4, opener);
+        FileDescriptorCache.Reader before = cache.open(a);
+        //重命名覆盖，路径指向了新的文件(新的inode)
+        Path replacement = dir.resolve("a.tmp");
+        Files.write(replacement, "new".getBytes(StandardCharsets.UTF_8));
+        Files.move(replacement, dir.resolve("a"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        FileDescriptorCache.Reader after = cache.open(a);
+        assertEquals(1, cache.getInvalidationCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, openCount(a));
+        assertEquals("new", readAll(after));
+        //之前的Reader继续读取旧文件
+        assertEquals("old", readAll(before));
+        before.close();
+        assertFalse(opened.get(0).channel.isOpen());
+        after.close();
+
+        //文件没有变化时命中
+        cache.open(a).close();
+        assertEquals(1, cache.getHitCount());
+        cache.close();
+    }
+
+    @Test
+    public void invalidatesDeletedFile() throws IOException {
+        String a = file("a", "x");
+        FileDescriptorCache cache = new FileDescriptorCache(4, opener);
+        cache.open(a).close();
+        Files.delete(dir.resolve("a"));
+        try {
+            cache.open(a);
+            fail();
+        } catch (IOException expected) {
+        }
+        assertEquals(1, cache.getInvalidationCount());
+        assertEquals(0, cache.size());
+        assertFalse(last(a).channel.isOpen());
+        cache.close();
+    }
+
+    @Test
+    public void explicitInvalidationAndClose() throws IOException {
+        String a = file("a", "a");
+        String b = file("b", "b");
+        FileDescriptorCache cache = new FileDescriptorCache(4, opener);
+        cache.open(a).close();
+        cache.open(b).close();
+        cache.invalidate(a);
+        assertEquals(1, cache.getInvalidationCount());
+        assertFalse(last(a).channel.isOpen());
+        //作废不存在的项不计数
+        cache.invalidate(a);
+        assertEquals(1, cache.getInvalidationCount());
+        cache.open(a).close();
+        assertEquals(2, openCount(a));
+        cache.invalidateAll();
+        assertEquals(3, cache.getInvalidationCount());
+        assertEquals(0, cache.size());
+        cache.open(b).close();
+        cache.close();
+        assertFalse(last(b).channel.isOpen());
+        try {
+            cache.open(a);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.zx.jdk.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MappedFileInputStreamTest {
+
+    //很小的块，让读取频繁跨过块边界
+    private static final int CHUNK = 64;
+
+    private Path file;
+    private byte[] data;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[CHUNK * 15 + 37];
+        new Random(3).nextBytes(data);
+        file = Files.createTempFile("mapped", ".bin");
+        Files.write(file, data);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private MappedFileInputStream open() throws IOException {
+        return new MappedFileInputStream(new FileInputStream(file.toString()), CHUNK);
+    }
+
+    @Test
+    public void singleByteReadsCrossChunkBoundaries() throws IOException {
+        try (MappedFileInputStream in = open()) {
+            for (int i = 0; i < data.length; i++) {
+                assertEquals("offset " + i, data[i] & 0xff, in.read());
+            }
+            assertEquals(-1, in.read());
+            assertEquals(0, in.available());
+        }
+    }
+
+    @Test
+    public void bulkReadsSpanSeveralChunks() throws IOException {
+        Random r = new Random(4);
+        try (MappedFileInputStream in = open()) {
+            byte[] out = new byte[data.length];
+            int n = 0;
+            while (n < out.length) {
+                int len = Math.min(1 + r.nextInt(3 * CHUNK), out.length - n);
+                int k = in.read(out, n, len);
+                assertEquals(len, k);
+                n += k;
+                assertEquals(n, in.position());
+            }
+            assertArrayEquals(data, out);
+            assertEquals(-1, in.read(new byte[1], 0, 1));
+        }
+    }
+
+    @Test
+    public void readIsClampedAtEndOfFile() throws IOException {
+        try (MappedFileInputStream in = open()) {
+            assertEquals(data.length - 10, in.skip(data.length - 10));
+            byte[] b = new byte[100];
+            assertEquals(10, in.read(b, 0, b.length));
+            assertArrayEquals(Arrays.copyOfRange(data, data.length - 10, data.length),
+                    Arrays.copyOf(b, 10));
+        }
+    }
+
+    @Test
+    public void skipMovesAcrossChunksAndStopsAtEnd() throws IOException {
+        try (MappedFileInputStream in = open()) {
+            assertEquals(CHUNK - 1, in.skip(CHUNK - 1));
+            assertEquals(data[CHUNK - 1] & 0xff, in.read());
+            assertEquals(3 * CHUNK, in.skip(3 * CHUNK));
+            assertEquals(data[4 * CHUNK] & 0xff, in.read());
+            assertEquals(data.length - 4 * CHUNK - 1, in.skip(Long.MAX_VALUE));
+            assertEquals(0, in.skip(1));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void negativeSkipDoesNotMoveBackwards() throws IOException {
+        try (MappedFileInputStream in = open()) {
+            in.skip(2 * CHUNK + 5);
+            assertEquals(0, in.skip(-10));
+            assertEquals(0, in.skip(Long.MIN_VALUE));
+            assertEquals(2 * CHUNK + 5, in.position());
+            assertEquals(data[2 * CHUNK + 5] & 0xff, in.read());
+        }
+    }
+
+    @Test
+    public void resetReturnsToMarkInAnotherChunk() throws IOException {
+        try (MappedFileInputStream in = open()) {
+            in.skip(CHUNK - 3);
+            in.mark(0);
+            byte[] first = new byte[5 * CHUNK];
+            assertEquals(first.length, in.read(first, 0, first.length));
+            in.reset();
+            assertEquals(CHUNK - 3, in.position());
+            byte[] again = new byte[first.length];
+            assertEquals(again.length, in.read(again, 0, again.length));
+            assertArrayEquals(first, again);
+            assertArrayEquals(Arrays.copyOfRange(data, CHUNK - 3, CHUNK - 3 + first.length), first);
+        }
+    }
+
+    @Test
+    public void startsAtChannelPosition() throws IOException {
+        FileInputStream fis = new FileInputStream(file.toString());
+        fis.getChannel().position(CHUNK + 1);
+        try (MappedFileInputStream in = new MappedFileInputStream(fis, CHUNK)) {
+            assertEquals(data.length - CHUNK - 1, in.available());
+            assertEquals(data[CHUNK + 1] & 0xff, in.read());
+            //默认的mark位置就是创建时的位置
+            in.skip(CHUNK * 2);
+            in.reset();
+            assertEquals(CHUNK + 1, in.position());
+        }
+    }
+
+    @Test
+    public void readAfterCloseFails() throws IOException {
+        MappedFileInputStream in = open();
+        in.close();
+        in.close();
+        try {
+            in.read();
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.zx.jdk.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelFileReaderTest {
+
+    private static final int CHUNK = 4096;
+
+    private Path file;
+    private FileChannel channel;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("parallel", ".bin");
+        byte[] data = new byte[CHUNK * 64];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i / CHUNK);
+        }
+        Files.write(file, data);
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void orderedReadDeliversChunksInFileOrder() throws IOException {
+        ParallelFileReader reader = new ParallelFileReader(channel, CHUNK);
+        long[] expected = {0};
+        reader.read(executor, 4, true, (position, data) -> {
+            assertEquals(expected[0], position);
+            assertEquals(CHUNK, data.remaining());
+            assertEquals((byte) (position / CHUNK), data.get(0));
+            expected[0] += data.remaining();
+        });
+        assertEquals(channel.size(), expected[0]);
+    }
+
+    @Test
+    public void unorderedReadCancelsPendingChunksOnConsumerFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingChannel counting = new CountingChannel(channel, release);
+        ParallelFileReader reader = new ParallelFileReader(counting, CHUNK);
+        try {
+            reader.read(executor, 8, false, (position, data) -> {
+                throw new IllegalStateException("consumer failed");
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        //第二个块可能已经开始读取(阻塞在latch上)，其余的块还在队列中，应该已经被取消
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue("reads: " + counting.reads.get(), counting.reads.get() <= 2);
+    }
+
+    //统计定位读取的次数，第一次之后的读取等待release
+    private static final class CountingChannel extends FileChannel {
+        final FileChannel ch;
+        final CountDownLatch release;
+        final AtomicInteger reads = new AtomicInteger();
+
+        CountingChannel(FileChannel ch, CountDownLatch release) {
+            this.ch = ch;
+            this.release = release;
+        }
+
+        public int read(ByteBuffer dst, long position) throws IOException {
+            if (reads.getAndIncrement() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return ch.read(dst, position);
+        }
+
+        public long size() throws IOException {
+            return ch.size();
+        }
+
+        public int read(ByteBuffer dst) throws IOException {
+            return ch.read(dst);
+        }
+
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return ch.read(dsts, offset, length);
+        }
+
+        public int write(ByteBuffer src) throws IOException {
+            return ch.write(src);
+        }
+
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return ch.write(srcs, offset, length);
+        }
+
+        public long position() throws IOException {
+            return ch.position();
+        }
+
+        public FileChannel position(long newPosition) throws IOException {
+            ch.position(newPosition);
+            return this;
+        }
+
+        public FileChannel truncate(long size) throws IOException {
+            ch.truncate(size);
+            return this;
+        }
+
+        public void force(boolean metaData) throws IOException {
+            ch.force(metaData);
+        }
+
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return ch.transferTo(position, count, target);
+        }
+
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return ch.transferFrom(src, position, count);
+        }
+
+        public int write(ByteBuffer src, long position) throws IOException {
+            return ch.write(src, position);
+        }
+
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return ch.map(mode, position, size);
+        }
+
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return ch.lock(position, size, shared);
+        }
+
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return ch.tryLock(position, size, shared);
+        }
+
+        protected void implCloseChannel() throws IOException {
+            ch.close();
+        }
+    }
+}
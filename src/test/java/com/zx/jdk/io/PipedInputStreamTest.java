@@ -0,0 +1,51 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PipedInputStreamTest {
+
+    //等待线程进入wait()
+    private static void awaitWaiting(Thread t) throws InterruptedException {
+        while (t.getState() != Thread.State.TIMED_WAITING && t.isAlive()) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void growthIsNotCountedAsWriterBlock() throws Exception {
+        PipedInputStream in = new PipedInputStream(1, 2);
+        in.connected = true;
+        Thread writer = new Thread(() -> {
+            try {
+                //第二个字节放不下，第一次阻塞要真正等待
+                in.receive(new byte[] {1, 2}, 0, 2);
+                //第二次缓冲区满，达到扩容阈值，扩容而不等待
+                in.receive(3);
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        writer.start();
+        awaitWaiting(writer);
+        assertEquals(1, in.read());
+        writer.join();
+
+        assertEquals(1, in.getWriterBlockedCount());
+        assertEquals(1, in.getGrowCount());
+        assertEquals(2, in.getPipeSize());
+        assertEquals(2, in.read());
+        assertEquals(3, in.read());
+        assertEquals(0, in.getReaderBlockedCount());
+    }
+
+    @Test
+    public void readAtEndIsNotCountedAsReaderBlock() throws Exception {
+        PipedInputStream in = new PipedInputStream(4);
+        in.connected = true;
+        in.receivedLast();
+        assertEquals(-1, in.read());
+        assertEquals(0, in.getReaderBlockedCount());
+    }
+}
@@ -0,0 +1,215 @@
+package com.zx.jdk.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrefetchingSequenceInputStreamTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    //记录是否被关闭的流
+    private static final class TrackedStream extends ByteArrayInputStream {
+        volatile boolean closed;
+
+        TrackedStream(byte[] data) {
+            super(data);
+        }
+
+        public void close() {
+            closed = true;
+        }
+    }
+
+    //第i个流的内容是i个值为i的字节；failAt位置的nextElement()抛出异常
+    private static class Streams implements Enumeration<InputStream> {
+        final List<TrackedStream> opened = new ArrayList<>();
+        final int count;
+        final int failAt;
+        int next;
+
+        Streams(int count, int failAt) {
+            this.count = count;
+            this.failAt = failAt;
+        }
+
+        public synchronized boolean hasMoreElements() {
+            return next < count;
+        }
+
+        public synchronized InputStream nextElement() {
+            if (next >= count) {
+                throw new NoSuchElementException();
+            }
+            int i = next++;
+            if (i == failAt) {
+                throw new IllegalStateException("open " + i);
+            }
+            byte[] data = new byte[i];
+            java.util.Arrays.fill(data, (byte) i);
+            TrackedStream s = new TrackedStream(data);
+            opened.add(s);
+            return s;
+        }
+
+        synchronized List<TrackedStream> opened() {
+            return new ArrayList<>(opened);
+        }
+    }
+
+    private static byte[] expected(int count, int skip) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            if (i != skip) {
+                for (int j = 0; j < i; j++) {
+                    out.write(i);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    //等待后台任务关闭所有打开过的流
+    private static void assertAllClosed(Streams streams) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            boolean all = true;
+            for (TrackedStream s : streams.opened()) {
+                all &= s.closed;
+            }
+            if (all) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("streams left open");
+    }
+
+    @Test(timeout = 30000)
+    public void readsStreamsInOrder() throws IOException {
+        Streams streams = new Streams(40, -1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PrefetchingSequenceInputStream in =
+                     new PrefetchingSequenceInputStream(streams, executor, 3, 5)) {
+            byte[] b = new byte[7];
+            int n;
+            while ((n = in.read(b, 0, b.length)) >= 0) {
+                out.write(b, 0, n);
+                int c = in.read();
+                if (c >= 0) {
+                    out.write(c);
+                }
+            }
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(expected(40, -1), out.toByteArray());
+        for (TrackedStream s : streams.opened()) {
+            assertTrue(s.closed);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void earlyCloseClosesPrefetchedStreamsAndStopsOpening() throws Exception {
+        Streams streams = new Streams(1000, -1);
+        PrefetchingSequenceInputStream in = new PrefetchingSequenceInputStream(streams, executor, 4, 8);
+        for (int i = 0; i < 20; i++) {
+            in.read();
+        }
+        in.close();
+        try {
+            in.read();
+            fail();
+        } catch (IOException expected) {
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertAllClosed(streams);
+        //只打开了读到的流和预取的流，不会把集合读完
+        assertTrue(streams.opened().size() < 20);
+    }
+
+    @Test(timeout = 30000)
+    public void openFailureIsReportedAtItsPositionAndReadingContinues() throws IOException {
+        Streams streams = new Streams(12, 5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int failures = 0;
+        try (PrefetchingSequenceInputStream in =
+                     new PrefetchingSequenceInputStream(streams, executor, 2, 3)) {
+            while (true) {
+                int c;
+                try {
+                    c = in.read();
+                } catch (IllegalStateException ex) {
+                    assertEquals("open 5", ex.getMessage());
+                    //前面的流都已经读完了
+                    assertArrayEquals(expected(5, -1), out.toByteArray());
+                    failures++;
+                    continue;
+                }
+                if (c < 0) {
+                    break;
+                }
+                out.write(c);
+            }
+        }
+        assertEquals(1, failures);
+        assertArrayEquals(expected(12, 5), out.toByteArray());
+    }
+
+    @Test(timeout = 30000)
+    public void constructorFailureClosesPrefetchedStreams() throws Exception {
+        //第一个流预读时失败
+        Streams streams = new Streams(10, -1) {
+            public synchronized InputStream nextElement() {
+                InputStream s = super.nextElement();
+                if (next == 1) {
+                    return new InputStream() {
+                        public int read() throws IOException {
+                            throw new IOException("broken");
+                        }
+                    };
+                }
+                return s;
+            }
+        };
+        try {
+            new PrefetchingSequenceInputStream(streams, executor, 3, 4);
+            fail();
+        } catch (IOException expected) {
+            assertEquals("broken", expected.getMessage());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        //第一个流之后的预取流都被关闭了(第一个流由预读失败时关闭，不在opened中被替换)
+        for (TrackedStream s : streams.opened().subList(1, streams.opened().size())) {
+            assertTrue(s.closed);
+        }
+        assertTrue(streams.opened().size() <= 4);
+    }
+}
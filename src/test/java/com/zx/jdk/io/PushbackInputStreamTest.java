@@ -0,0 +1,161 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PushbackInputStreamTest {
+
+    //0, 1, 2, ... n-1，每次最多返回3个字节，让fill()多次读取
+    private static PushbackInputStream stream(int n, int size) {
+        byte[] data = new byte[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = (byte) i;
+        }
+        return new PushbackInputStream(new ByteArrayInputStream(data) {
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        }, size);
+    }
+
+    @Test
+    public void peekThenReadReturnsSameBytes() throws IOException {
+        PushbackInputStream in = stream(50, 1);
+        assertEquals(0, in.peek(0));
+        assertEquals(9, in.peek(9));
+        byte[] peeked = new byte[20];
+        assertEquals(20, in.peek(peeked, 0, 20));
+        byte[] read = new byte[20];
+        int n = 0;
+        while (n < read.length) {
+            n += in.read(read, n, read.length - n);
+        }
+        assertArrayEquals(peeked, read);
+        assertEquals(20, in.read());
+        assertEquals(21, in.peek(0));
+        assertEquals(21, in.read());
+    }
+
+    @Test
+    public void peekAtEndOfStream() throws IOException {
+        PushbackInputStream in = stream(5, 2);
+        assertEquals(4, in.peek(4));
+        assertEquals(-1, in.peek(5));
+        byte[] b = new byte[10];
+        assertEquals(5, in.peek(b, 0, 10));
+        in.skip(5);
+        assertEquals(-1, in.peek(0));
+        assertEquals(-1, in.peek(b, 0, 1));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void unreadPastInitialSizeGrowsBuffer() throws IOException {
+        PushbackInputStream in = stream(10, 2);
+        assertEquals(0, in.read());
+        assertEquals(1, in.read());
+        in.unread(new byte[] {10, 11, 12, 13, 14});
+        in.unread(9);
+        in.unread(new byte[] {7, 8});
+        //回推的8个字节加上流中剩余的8个
+        assertEquals(16, in.available());
+        byte[] b = new byte[11];
+        int n = 0;
+        while (n < b.length) {
+            n += in.read(b, n, b.length - n);
+        }
+        assertArrayEquals(new byte[] {7, 8, 9, 10, 11, 12, 13, 14, 2, 3, 4}, b);
+    }
+
+    @Test
+    public void unreadBetweenPeekedBytesKeepsOrder() throws IOException {
+        PushbackInputStream in = stream(10, 1);
+        assertEquals(3, in.peek(3));
+        in.unread(new byte[] {-1, -2, -3});
+        assertEquals(-1 & 0xff, in.read());
+        assertEquals(-2 & 0xff, in.read());
+        assertEquals(-3 & 0xff, in.read());
+        assertEquals(0, in.read());
+    }
+
+    @Test
+    public void resetAfterReadsAndSkipsWithinMarklimit() throws IOException {
+        PushbackInputStream in = stream(100, 4);
+        in.read();
+        in.mark(40);
+        byte[] b = new byte[7];
+        assertEquals(3, in.read(b, 0, 7));
+        assertEquals(20, in.skip(20));
+        assertEquals(24, in.read());
+        in.reset();
+        assertEquals(1, in.read());
+        //可以多次回滚
+        in.reset();
+        byte[] again = new byte[30];
+        int n = 0;
+        while (n < again.length) {
+            n += in.read(again, n, again.length - n);
+        }
+        for (int i = 0; i < again.length; i++) {
+            assertEquals(1 + i, again[i]);
+        }
+        assertEquals(31, in.read());
+    }
+
+    @Test
+    public void markBecomesInvalidPastMarklimit() throws IOException {
+        PushbackInputStream in = stream(100, 4);
+        in.mark(10);
+        for (int i = 0; i < 30; i++) {
+            assertEquals(i, in.read());
+        }
+        try {
+            in.reset();
+            fail();
+        } catch (IOException expected) {
+        }
+        assertEquals(30, in.read());
+    }
+
+    @Test
+    public void unreadClearsMark() throws IOException {
+        PushbackInputStream in = stream(20, 4);
+        in.mark(100);
+        in.read();
+        in.unread(5);
+        try {
+            in.reset();
+            fail();
+        } catch (IOException expected) {
+        }
+        assertEquals(5, in.read());
+        assertEquals(1, in.read());
+    }
+
+    @Test
+    public void skipWithoutMarkUsesBufferThenStream() throws IOException {
+        PushbackInputStream in = stream(100, 4);
+        assertEquals(5, in.peek(5));
+        assertEquals(50, in.skip(50));
+        assertEquals(50, in.read());
+        assertEquals(0, in.skip(-1));
+    }
+
+    @Test
+    public void closedStreamRejectsReads() throws IOException {
+        PushbackInputStream in = stream(10, 1);
+        in.close();
+        in.close();
+        try {
+            in.peek(0);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RingPipedInputStreamTest {
+
+    //第i个字节的值，不是简单的i & 0xFF，错位时能发现
+    private static byte at(long i) {
+        return (byte) ((i * 31) ^ (i >>> 7));
+    }
+
+    //等待线程挂起(park)，超时则失败
+    private static void awaitParked(Thread t) throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            Thread.State s = t.getState();
+            if (s == Thread.State.WAITING || s == Thread.State.TIMED_WAITING) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        fail("thread did not block: " + t.getState());
+    }
+
+    @Test(timeout = 60000)
+    public void producerConsumerKeepsOrder() throws Exception {
+        //100会向上取整为128
+        RingPipedInputStream in = new RingPipedInputStream(100);
+        RingPipedOutputStream out = new RingPipedOutputStream(in);
+        final long total = 4_000_000;
+        CRC32 written = new CRC32();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            Random r = new Random(1);
+            byte[] b = new byte[300];
+            try {
+                long i = 0;
+                while (i < total) {
+                    if (r.nextInt(8) == 0) {
+                        written.update(at(i));
+                        out.write(at(i++));
+                        continue;
+                    }
+                    int n = (int) Math.min(1 + r.nextInt(b.length), total - i);
+                    for (int k = 0; k < n; k++) {
+                        b[k] = at(i + k);
+                    }
+                    written.update(b, 0, n);
+                    out.write(b, 0, n);
+                    i += n;
+                }
+                out.close();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        producer.start();
+
+        Random r = new Random(2);
+        CRC32 read = new CRC32();
+        byte[] b = new byte[257];
+        long i = 0;
+        while (true) {
+            if (r.nextInt(8) == 0) {
+                int c = in.read();
+                if (c < 0) {
+                    break;
+                }
+                assertEquals("offset " + i, at(i) & 0xFF, c);
+                read.update(c);
+                i++;
+                continue;
+            }
+            int n = in.read(b, 0, 1 + r.nextInt(b.length));
+            if (n < 0) {
+                break;
+            }
+            for (int k = 0; k < n; k++) {
+                assertEquals("offset " + (i + k), at(i + k), b[k]);
+            }
+            read.update(b, 0, n);
+            i += n;
+        }
+        producer.join();
+        assertNull(failure.get());
+        assertEquals(total, i);
+        assertEquals(written.getValue(), read.getValue());
+    }
+
+    @Test
+    public void wrapsAroundWithOddSizes() throws IOException {
+        //5会向上取整为8
+        RingPipedInputStream in = new RingPipedInputStream(5);
+        RingPipedOutputStream out = new RingPipedOutputStream(in);
+        byte[] b = new byte[8];
+        long w = 0, r = 0;
+        for (int round = 0; round < 50; round++) {
+            //每轮写入3到8个字节，再读出若干个，读写位置在缓冲区中不断错开
+            int n = 3 + round % 6;
+            n = Math.min(n, 8 - (int) (w - r));
+            for (int k = 0; k < n; k++) {
+                b[k] = at(w + k);
+            }
+            out.write(b, 0, n);
+            w += n;
+            assertEquals(w - r, in.available());
+            int m = in.read(b, 0, 1 + round % 7);
+            for (int k = 0; k < m; k++) {
+                assertEquals(at(r + k), b[k]);
+            }
+            r += m;
+        }
+        out.close();
+        while (r < w) {
+            assertEquals(at(r++) & 0xFF, in.read());
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test(timeout = 10000)
+    public void readerWakesUpWhenWriterCloses() throws Exception {
+        RingPipedInputStream in = new RingPipedInputStream(16);
+        RingPipedOutputStream out = new RingPipedOutputStream(in);
+        int[] result = new int[3];
+        Thread reader = new Thread(() -> {
+            try {
+                result[0] = in.read();
+                result[1] = in.read();
+                result[2] = in.read(new byte[4], 0, 4);
+            } catch (IOException ex) {
+                result[0] = -100;
+            }
+        });
+        out.write(42);
+        reader.start();
+        awaitParked(reader);
+        out.close();
+        reader.join();
+        assertEquals(42, result[0]);
+        assertEquals(-1, result[1]);
+        assertEquals(-1, result[2]);
+    }
+
+    @Test(timeout = 10000)
+    public void writerBlocksOnFullRingUntilReaderFreesSpace() throws Exception {
+        RingPipedInputStream in = new RingPipedInputStream(16);
+        RingPipedOutputStream out = new RingPipedOutputStream(in);
+        byte[] data = new byte[40];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = at(i);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                out.write(data, 0, data.length);
+                out.close();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        writer.start();
+        awaitParked(writer);
+        assertEquals(16, in.available());
+        byte[] got = new byte[data.length];
+        int n = 0;
+        int k;
+        while ((k = in.read(got, n, got.length - n)) > 0) {
+            n += k;
+        }
+        writer.join();
+        assertNull(failure.get());
+        assertArrayEquals(data, got);
+    }
+
+    @Test(timeout = 10000)
+    public void readerBlocksOnEmptyRingUntilDataArrives() throws Exception {
+        RingPipedInputStream in = new RingPipedInputStream(16);
+        RingPipedOutputStream out = new RingPipedOutputStream(in);
+        int[] result = {-2};
+        Thread reader = new Thread(() -> {
+            try {
+                result[0] = in.read();
+            } catch (IOException ex) {
+                result[0] = -100;
+            }
+        });
+        reader.start();
+        awaitParked(reader);
+        assertEquals(-2, result[0]);
+        out.write(7);
+        reader.join();
+        assertEquals(7, result[0]);
+    }
+
+    @Test(timeout = 10000)
+    public void blockedWriterFailsWhenReaderCloses() throws Exception {
+        RingPipedInputStream in = new RingPipedInputStream(4);
+        RingPipedOutputStream out = new RingPipedOutputStream(in);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                out.write(new byte[10], 0, 10);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        writer.start();
+        awaitParked(writer);
+        in.close();
+        writer.join();
+        assertTrue(failure.get() instanceof IOException);
+    }
+}
@@ -0,0 +1,144 @@
+package com.zx.jdk.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SequenceInputStreamTest {
+
+    private Path file;
+    private byte[] fileData;
+
+    @Before
+    public void setUp() throws IOException {
+        fileData = new byte[100_000];
+        new Random(8).nextBytes(fileData);
+        file = Files.createTempFile("sequence", ".bin");
+        Files.write(file, fileData);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    //写入时先返回zeroWrites次0，之后每次最多接收chunk个字节
+    private static final class StallingChannel implements WritableByteChannel {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int zeroWrites;
+        final int chunk;
+
+        StallingChannel(int zeroWrites, int chunk) {
+            this.zeroWrites = zeroWrites;
+            this.chunk = chunk;
+        }
+
+        public int write(ByteBuffer src) {
+            if (zeroWrites > 0) {
+                zeroWrites--;
+                return 0;
+            }
+            int n = Math.min(chunk, src.remaining());
+            for (int i = 0; i < n; i++) {
+                out.write(src.get());
+            }
+            return n;
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    }
+
+    private SequenceInputStream sequence() throws IOException {
+        InputStream tail = new ByteArrayInputStream(new byte[] {1, 2, 3});
+        return new SequenceInputStream(new java.io.FileInputStream(file.toFile()), tail);
+    }
+
+    @Test
+    public void transferToKeepsFileRemainderWhenTargetStalls() throws IOException {
+        StallingChannel target = new StallingChannel(1, 4096);
+        long n = sequence().transferTo(target);
+
+        byte[] expected = new byte[fileData.length + 3];
+        System.arraycopy(fileData, 0, expected, 0, fileData.length);
+        expected[fileData.length] = 1;
+        expected[fileData.length + 1] = 2;
+        expected[fileData.length + 2] = 3;
+        assertEquals(expected.length, n);
+        assertArrayEquals(expected, target.out.toByteArray());
+    }
+
+    @Test(expected = IOException.class, timeout = 10000)
+    public void transferToFailsWhenTargetNeverAcceptsData() throws IOException {
+        sequence().transferTo(new StallingChannel(Integer.MAX_VALUE, 0));
+    }
+
+    @Test(expected = IllegalBlockingModeException.class)
+    public void transferToRejectsNonBlockingTarget() throws IOException {
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            sequence().transferTo(pipe.sink());
+        } finally {
+            pipe.sink().close();
+            pipe.source().close();
+        }
+    }
+
+    //三个短流，每个流每次最多返回2个字节
+    private static SequenceInputStream parts() {
+        java.util.Vector<InputStream> v = new java.util.Vector<>();
+        for (byte[] part : new byte[][] {{1, 2, 3}, {}, {4, 5}, {6, 7, 8, 9}}) {
+            v.add(new ByteArrayInputStream(part) {
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, 2));
+                }
+            });
+        }
+        return new SequenceInputStream(v.elements());
+    }
+
+    @Test
+    public void readStopsAtPartBoundaryByDefault() throws IOException {
+        SequenceInputStream in = parts();
+        assertFalse(in.isFillAcrossParts());
+        byte[] b = new byte[10];
+        assertEquals(2, in.read(b, 0, 10));
+        assertEquals(1, in.read(b, 2, 8));
+        assertEquals(2, in.read(b, 3, 7));
+    }
+
+    @Test
+    public void fillAcrossPartsReadsUntilLenOrEnd() throws IOException {
+        SequenceInputStream in = parts();
+        in.setFillAcrossParts(true);
+        assertTrue(in.isFillAcrossParts());
+        byte[] b = new byte[10];
+        assertEquals(7, in.read(b, 0, 7));
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 0, 0, 0}, b);
+        assertEquals(2, in.read(b, 7, 3));
+        assertEquals(9, b[8]);
+        assertEquals(-1, in.read(b, 0, 10));
+    }
+}
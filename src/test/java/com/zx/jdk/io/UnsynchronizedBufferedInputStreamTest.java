@@ -0,0 +1,132 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 和java.io.BufferedInputStream的差分测试，两者的fill()、mark()、reset()语义必须完全相同
+ */
+public class UnsynchronizedBufferedInputStreamTest {
+
+    //每次最多返回几个字节的流，让fill()在缓冲区中途被调用
+    private static final class ChunkedInputStream extends ByteArrayInputStream {
+        private final Random r;
+
+        ChunkedInputStream(byte[] data, Random r) {
+            super(data);
+            this.r = r;
+        }
+
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1 + r.nextInt(13)));
+        }
+    }
+
+    //执行一次操作，返回结果的摘要，抛出IOException时返回"IOException"
+    private static String apply(InputStream in, int op, int arg) {
+        try {
+            switch (op) {
+                case 0:
+                    return "read " + in.read();
+                case 1:
+                    byte[] b = new byte[arg];
+                    int n = in.read(b, 0, arg);
+                    return "read[] " + n + " " + Arrays.toString(Arrays.copyOf(b, Math.max(n, 0)));
+                case 2:
+                    return "skip " + in.skip(arg);
+                case 3:
+                    in.mark(arg);
+                    return "mark";
+                case 4:
+                    in.reset();
+                    return "reset";
+                default:
+                    return "available " + in.available();
+            }
+        } catch (IOException ex) {
+            return "IOException";
+        }
+    }
+
+    @Test
+    public void randomOperationsMatchBufferedInputStream() {
+        Random r = new Random(1);
+        for (int round = 0; round < 2000; round++) {
+            byte[] data = new byte[r.nextInt(500)];
+            r.nextBytes(data);
+            int size = 1 + r.nextInt(32);
+            long seed = r.nextLong();
+            InputStream expected = new java.io.BufferedInputStream(
+                    new ChunkedInputStream(data, new Random(seed)), size);
+            InputStream actual = new UnsynchronizedBufferedInputStream(
+                    new ChunkedInputStream(data, new Random(seed)), size);
+            for (int step = 0; step < 200; step++) {
+                int op = r.nextInt(6);
+                int arg = r.nextInt(40);
+                assertEquals("round " + round + " step " + step,
+                        apply(expected, op, arg), apply(actual, op, arg));
+            }
+        }
+    }
+
+    @Test
+    public void markBeyondBufferGrowsUpToMarklimit() throws IOException {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        UnsynchronizedBufferedInputStream in =
+                new UnsynchronizedBufferedInputStream(new ByteArrayInputStream(data), 4);
+        assertTrue(in.markSupported());
+        in.mark(50);
+        byte[] first = new byte[40];
+        assertEquals(40, readFully(in, first));
+        in.reset();
+        byte[] again = new byte[40];
+        assertEquals(40, readFully(in, again));
+        assertArrayEquals(first, again);
+    }
+
+    private static int readFully(InputStream in, byte[] b) throws IOException {
+        int n = 0;
+        while (n < b.length) {
+            int k = in.read(b, n, b.length - n);
+            if (k < 0) {
+                break;
+            }
+            n += k;
+        }
+        return n;
+    }
+
+    @Test
+    public void closeFromAnotherThreadFailsLaterReads() throws Exception {
+        UnsynchronizedBufferedInputStream in =
+                new UnsynchronizedBufferedInputStream(new ByteArrayInputStream(new byte[10]));
+        assertEquals(0, in.read());
+        Thread closer = new Thread(() -> {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        closer.start();
+        closer.join();
+        try {
+            in.read();
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.zx.jdk.io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+//和ByteArrayInputStream使用同一组检查，保证去掉同步后行为不变
+public class UnsynchronizedByteArrayInputStreamTest {
+
+    @Test
+    public void readSliceReusesView() {
+        ByteArrayInputStreamTest.checkReusedView(
+                new UnsynchronizedByteArrayInputStream(ByteArrayInputStreamTest.data(12), 2, 8));
+    }
+
+    @Test
+    public void readSliceRejectsForeignViews() {
+        ByteArrayInputStreamTest.checkForeignViews(
+                new UnsynchronizedByteArrayInputStream(ByteArrayInputStreamTest.data(12), 2, 8),
+                new UnsynchronizedByteArrayInputStream(ByteArrayInputStreamTest.data(12)));
+    }
+
+    @Test
+    public void readSliceReturnsNewViews() {
+        ByteArrayInputStreamTest.checkNewSlices(
+                new UnsynchronizedByteArrayInputStream(ByteArrayInputStreamTest.data(12), 2, 8));
+    }
+
+    @Test
+    public void readMatchesByteArrayInputStream() {
+        byte[] data = ByteArrayInputStreamTest.data(100);
+        ByteArrayInputStream expected = new ByteArrayInputStream(data, 3, 90);
+        UnsynchronizedByteArrayInputStream in = new UnsynchronizedByteArrayInputStream(data, 3, 90);
+        assertEquals(expected.read(), in.read());
+        assertEquals(expected.skip(5), in.skip(5));
+        in.mark(0);
+        expected.mark(0);
+        byte[] a = new byte[40];
+        byte[] b = new byte[40];
+        assertEquals(expected.read(a, 1, 39), in.read(b, 1, 39));
+        assertArrayEquals(a, b);
+        in.reset();
+        expected.reset();
+        assertEquals(expected.available(), in.available());
+        assertEquals(expected.read(a, 0, 0), in.read(b, 0, 0));
+        while (expected.available() > 0) {
+            assertEquals(expected.read(a, 0, 7), in.read(b, 0, 7));
+            assertArrayEquals(a, b);
+        }
+        assertEquals(-1, in.read());
+        assertEquals(-1, in.read(b, 0, 1));
+        assertEquals(0, in.skip(1));
+        ByteBuffer view = in.newView();
+        assertEquals(0, in.readSlice(1, view).remaining());
+    }
+}
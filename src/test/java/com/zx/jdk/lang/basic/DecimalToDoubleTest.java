@@ -0,0 +1,192 @@
+package com.zx.jdk.lang.basic;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * DecimalToDouble的正确性语料，所有结果都和java.lang.Double.parseDouble逐位比较
+ */
+public class DecimalToDoubleTest {
+
+    //用两个重载分别解析，和java.lang.Double.parseDouble比较位模式，格式错误时两边都必须抛出NumberFormatException
+    private static void check(String s) {
+        long expected;
+        try {
+            expected = java.lang.Double.doubleToRawLongBits(java.lang.Double.parseDouble(s));
+        } catch (NumberFormatException ex) {
+            try {
+                DecimalToDouble.parse(s, 0, s.length());
+                fail("expected NumberFormatException: " + s);
+            } catch (NumberFormatException ok) {
+            }
+            try {
+                byte[] b = s.getBytes(StandardCharsets.ISO_8859_1);
+                DecimalToDouble.parse(b, 0, b.length);
+                fail("expected NumberFormatException: " + s);
+            } catch (NumberFormatException ok) {
+            }
+            return;
+        }
+        assertEquals(s, expected,
+                java.lang.Double.doubleToRawLongBits(DecimalToDouble.parse(s, 0, s.length())));
+        //前后加上其他字符，检查偏移量的处理
+        byte[] b = ("x" + s + "y").getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(s, expected,
+                java.lang.Double.doubleToRawLongBits(DecimalToDouble.parse(b, 1, b.length - 2)));
+        String padded = "[" + s + "]";
+        assertEquals(s, expected,
+                java.lang.Double.doubleToRawLongBits(DecimalToDouble.parse(padded, 1, padded.length() - 1)));
+    }
+
+    //d和下一个double正中间的精确十进制值，以及比它大一点、小一点的值
+    private static void checkHalfway(double d) {
+        if (java.lang.Double.isNaN(d) || java.lang.Double.isInfinite(d)
+                || d == java.lang.Double.MAX_VALUE) {
+            return;
+        }
+        BigDecimal lo = new BigDecimal(d);
+        BigDecimal hi = new BigDecimal(Math.nextUp(d));
+        BigDecimal mid = lo.add(hi).divide(BigDecimal.valueOf(2));
+        BigDecimal ulp = hi.subtract(lo);
+        BigDecimal tiny = ulp.movePointLeft(30);
+        check(mid.toString());
+        check(mid.add(tiny).toString());
+        check(mid.subtract(tiny).toString());
+        check(mid.toPlainString());
+    }
+
+    @Test
+    public void simpleValues() {
+        String[] values = {
+                "0", "-0", "+0", "0.0", "-0.0", "1", "-1", "1.5", "0.1", "0.2", "0.3", "3.141592653589793",
+                "2.718281828459045", "1e0", "1E1", "1e22", "1e23", "1e-22", "1e-23", "123456789", "1.0e+10",
+                ".5", "5.", "00000000000000000000001", "0.000000000000000000000000000001", "1.5f", "1.5F",
+                "2.5d", "2.5D", "  42  ", "\t-7.25\n", "9007199254740992", "9007199254740993",
+                "9007199254740994", "9007199254740995", "1.7976931348623157e308", "4.9e-324",
+        };
+        for (String s : values) {
+            check(s);
+        }
+    }
+
+    @Test
+    public void halfwayCases() {
+        double[] values = {
+                1.0, 0.1, 1e23, 8.98846567431158e307, 2.2250738585072014e-308, 5e-324, 1e-300,
+                123456.789, 9007199254740992.0, 4503599627370496.5, Math.PI,
+        };
+        for (double d : values) {
+            checkHalfway(d);
+            checkHalfway(Math.nextDown(d));
+        }
+        //2^53 + 1 正好在两个double中间，向偶数舍入
+        check("9007199254740993");
+        check("9007199254740993.0000000000000000001");
+        Random r = new Random(16);
+        for (int i = 0; i < 5_000; i++) {
+            checkHalfway(java.lang.Double.longBitsToDouble(r.nextLong() & 0x7FFFFFFFFFFFFFFFL));
+        }
+    }
+
+    @Test
+    public void subnormals() {
+        String[] values = {
+                "4.9e-324", "4.9E-324", "5e-324", "2.4703282292062327e-324", "2.4703282292062328e-324",
+                "2.470328229206232720882e-324", "7.4e-324", "1e-323", "2.2250738585072009e-308",
+                "2.2250738585072011e-308", "2.2250738585072012e-308", "2.2250738585072014e-308",
+                "4.9406564584124654e-324", "1.0e-310", "-1.0e-315",
+        };
+        for (String s : values) {
+            check(s);
+        }
+        Random r = new Random(324);
+        for (int i = 0; i < 5_000; i++) {
+            double d = java.lang.Double.longBitsToDouble(r.nextLong() & 0x000FFFFFFFFFFFFFL);
+            check(java.lang.Double.toString(d));
+            checkHalfway(d);
+        }
+    }
+
+    @Test
+    public void nineteenAndTwentyDigitBoundaries() {
+        String[] values = {
+                "999999999999999999", "1000000000000000000", "9999999999999999999",
+                "10000000000000000000", "18446744073709551615", "18446744073709551616",
+                "12345678901234567890", "1234567890123456789", "1234567890123456789e-5",
+                "12345678901234567891e-5", "9223372036854775807", "9223372036854775808",
+                "0.1234567890123456789", "0.12345678901234567890", "1.00000000000000000001",
+                "9007199254740993000", "90071992547409930000", "9007199254740992999999",
+                "1.000000000000000000000000000000000000001e300", "0.0000000000000000000123456789012345678901",
+        };
+        for (String s : values) {
+            check(s);
+            check("-" + s);
+        }
+        Random r = new Random(19);
+        for (int i = 0; i < 20_000; i++) {
+            int digits = 17 + r.nextInt(6);
+            StringBuilder sb = new StringBuilder();
+            sb.append((char) ('1' + r.nextInt(9)));
+            for (int k = 1; k < digits; k++) {
+                sb.append((char) ('0' + r.nextInt(10)));
+            }
+            sb.insert(1 + r.nextInt(digits - 1), '.');
+            sb.append('e').append(r.nextInt(640) - 330);
+            check(sb.toString());
+        }
+    }
+
+    @Test
+    public void overflowAndUnderflow() {
+        String[] values = {
+                "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308",
+                "1.797693134862315807e308", "1.797693134862315808e308", "1e308", "1e309", "-1e309",
+                "1e400", "1e100000", "1e2147483647", "1e2147483648", "1e99999999999", "1e-324", "1e-325",
+                "2e-324", "3e-324", "1e-400", "-1e-400", "1e-100000", "1e-2147483648", "1e-99999999999",
+                "0e999999", "0.000e-999999", "123456789012345678901234567890e-350",
+        };
+        for (String s : values) {
+            check(s);
+        }
+    }
+
+    @Test
+    public void delegatedForms() {
+        String[] values = {
+                "NaN", "-NaN", "+NaN", "Infinity", "-Infinity", "+Infinity", " Infinity ", "0x1p0", "0x1.8p1",
+                "-0x1.fffffffffffffp1023", "0x0.0000000000001p-1022", "0X1P-1074", "0x1.0p", "0x",
+        };
+        for (String s : values) {
+            check(s);
+        }
+    }
+
+    @Test
+    public void malformedInput() {
+        String[] values = {
+                "", " ", "+", "-", ".", "e5", "1e", "1e+", "1.2.3", "1..2", "--1", "1f5", "1x", "abc", "1 2",
+                "Inf", "nan", "1e5.5", "١", "0x1.8",
+        };
+        for (String s : values) {
+            check(s);
+        }
+    }
+
+    @Test
+    public void randomRoundTrips() {
+        Random r = new Random(2016);
+        for (int i = 0; i < 50_000; i++) {
+            double d = java.lang.Double.longBitsToDouble(r.nextLong());
+            check(java.lang.Double.toString(d));
+            if (!java.lang.Double.isNaN(d) && !java.lang.Double.isInfinite(d)) {
+                check(new BigDecimal(d).round(new java.math.MathContext(1 + r.nextInt(25))).toString());
+            }
+        }
+    }
+}
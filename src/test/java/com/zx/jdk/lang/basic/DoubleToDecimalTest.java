@@ -0,0 +1,152 @@
+package com.zx.jdk.lang.basic;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * DoubleToDecimal的正确性语料，结果和java.lang.Double.toString比较，并用parseDouble检查能否精确还原
+ * java.lang.Double.toString(JDK 19之前)不一定是最短的，所以不要求逐字相同：
+ * 位数不能比它多，格式(是否科学计数法)必须相同，位数相同时不能比它离精确值更远
+ */
+public class DoubleToDecimalTest {
+
+    private static void check(double v) {
+        String s = DoubleToDecimal.toString(v);
+        String expected = java.lang.Double.toString(v);
+        if (java.lang.Double.isNaN(v) || java.lang.Double.isInfinite(v) || v == 0) {
+            assertEquals(expected, s);
+        } else {
+            //精确还原，包括符号
+            assertEquals(s, java.lang.Double.doubleToRawLongBits(v),
+                    java.lang.Double.doubleToRawLongBits(java.lang.Double.parseDouble(s)));
+            assertEquals(expected + " " + s, expected.indexOf('E') < 0, s.indexOf('E') < 0);
+            assertTrue(expected + " " + s, s.length() <= expected.length());
+            if (s.length() == expected.length() && !s.equals(expected)) {
+                BigDecimal exact = new BigDecimal(v);
+                assertTrue(expected + " " + s, new BigDecimal(s).subtract(exact).abs()
+                        .compareTo(new BigDecimal(expected).subtract(exact).abs()) <= 0);
+            }
+        }
+        //写入调用者的数组，前后的内容不能被修改
+        char[] chars = new char[s.length() + 2];
+        Arrays.fill(chars, '#');
+        assertEquals(s.length() + 1, DoubleToDecimal.format(v, chars, 1));
+        assertEquals("#" + s + "#", new String(chars));
+        byte[] bytes = new byte[DoubleToDecimal.MAX_CHARS + 2];
+        int end = DoubleToDecimal.format(v, bytes, 2);
+        assertEquals(s, new String(bytes, 2, end - 2, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void specialValues() {
+        double[] values = {
+                0.0, -0.0, java.lang.Double.NaN, java.lang.Double.POSITIVE_INFINITY,
+                java.lang.Double.NEGATIVE_INFINITY, java.lang.Double.MIN_VALUE, -java.lang.Double.MIN_VALUE,
+                java.lang.Double.MAX_VALUE, -java.lang.Double.MAX_VALUE, java.lang.Double.MIN_NORMAL,
+                Math.nextDown(java.lang.Double.MIN_NORMAL), 1, -1, 0.1, 0.2, 0.3, 0.1 + 0.2, 1.0 / 3, 2.0 / 3,
+                Math.PI, Math.E, 100, 1e7, Math.nextDown(1e7), 1e-3, Math.nextDown(1e-3), 9999999.999999998,
+                1e22, 1e23, 2e23, 5e-324, 1e-323, 9007199254740992.0, 9007199254740994.0,
+                1.7976931348623157e308, 2.2250738585072014E-308, 4.35, 0.001, 1234567.0, 12345678.0,
+        };
+        for (double v : values) {
+            check(v);
+            check(-v);
+        }
+    }
+
+    @Test
+    public void powers() {
+        for (int i = -1074; i <= 1023; i++) {
+            double v = Math.scalb(1.0, i);
+            check(v);
+            check(Math.nextUp(v));
+            check(Math.nextDown(v));
+        }
+        for (int i = -323; i <= 308; i++) {
+            check(java.lang.Double.parseDouble("1e" + i));
+        }
+    }
+
+    @Test
+    public void randomBits() {
+        Random r = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            double v = java.lang.Double.longBitsToDouble(r.nextLong());
+            check(v);
+        }
+    }
+
+    @Test
+    public void subnormals() {
+        Random r = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            check(java.lang.Double.longBitsToDouble(r.nextLong() & ((1L << 52) - 1)));
+        }
+        //尾数很小的非规格化数
+        for (long bits = 1; bits < 1000; bits++) {
+            check(java.lang.Double.longBitsToDouble(bits));
+        }
+    }
+
+    @Test
+    public void shortDecimals() {
+        Random r = new Random(3);
+        for (int i = 0; i < 50000; i++) {
+            //位数很少的十进制数，结果应该就是它本身
+            double v = r.nextInt(1000000) / Math.pow(10, r.nextInt(12));
+            check(v);
+            check(r.nextInt());
+            check(r.nextLong());
+            check(r.nextFloat());
+        }
+    }
+
+    @Test
+    public void formatBounds() {
+        String s = java.lang.Double.toString(-2.2250738585072014E-308);
+        //正好放得下
+        char[] chars = new char[s.length()];
+        assertEquals(s.length(), DoubleToDecimal.format(-2.2250738585072014E-308, chars, 0));
+        assertEquals(s, new String(chars));
+        byte[] bytes = new byte[s.length() + 1];
+        assertEquals(s.length() + 1, DoubleToDecimal.format(-2.2250738585072014E-308, bytes, 1));
+        assertEquals(s, new String(bytes, 1, s.length(), StandardCharsets.ISO_8859_1));
+        //放不下时抛出异常，数组不被修改
+        char[] shortChars = new char[s.length()];
+        try {
+            DoubleToDecimal.format(-2.2250738585072014E-308, shortChars, 1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertArrayEquals(new char[s.length()], shortChars);
+        byte[] shortBytes = new byte[2];
+        try {
+            DoubleToDecimal.format(1.5, shortBytes, 0);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertArrayEquals(new byte[2], shortBytes);
+        try {
+            DoubleToDecimal.format(1.5, new char[4], 5);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            DoubleToDecimal.format(1.5, new char[4], -1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        char[] exact = new char[3];
+        assertEquals(3, DoubleToDecimal.format(1.5, exact, 0));
+        assertEquals("1.5", new String(exact));
+    }
+}
@@ -0,0 +1,126 @@
+package com.zx.jdk.lang.basic;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Integer.formatDecimal()的两个重载和java.lang.Integer.toString()的差分测试
+ * MIN_VALUE无法取负，走putAscii()写入常量字符串，单独覆盖
+ */
+public class IntegerFormatTest {
+
+    //按位数分界的边界值：10^k - 1、10^k、10^k + 1以及它们的负数，getChars()中65536的分界，以及int的边界
+    private static int[] boundaries() {
+        int[] b = new int[10 * 6 + 8];
+        int n = 0;
+        int p = 1;
+        for (int k = 0; k < 10; k++) {
+            b[n++] = p - 1;
+            b[n++] = p;
+            b[n++] = p + 1;
+            b[n++] = -(p - 1);
+            b[n++] = -p;
+            b[n++] = -(p + 1);
+            p = (k < 9) ? p * 10 : p;
+        }
+        int[] extra = {
+                java.lang.Integer.MAX_VALUE, java.lang.Integer.MIN_VALUE, java.lang.Integer.MIN_VALUE + 1,
+                65535, 65536, -65535, -65536, -1,
+        };
+        for (int x : extra) {
+            b[n++] = x;
+        }
+        return b;
+    }
+
+    private static void check(int x) {
+        String expected = java.lang.Integer.toString(x);
+        int len = expected.length();
+
+        //正好放得下
+        char[] chars = new char[len];
+        assertEquals(len, Integer.formatDecimal(x, chars, 0));
+        assertEquals(expected, new String(chars));
+        byte[] bytes = new byte[len];
+        assertEquals(len, Integer.formatDecimal(x, bytes, 0));
+        assertEquals(expected, new String(bytes, StandardCharsets.US_ASCII));
+
+        //前后的内容不能被修改
+        chars = new char[len + 3];
+        Arrays.fill(chars, '#');
+        assertEquals(2 + len, Integer.formatDecimal(x, chars, 2));
+        assertEquals("##" + expected + "#", new String(chars));
+        bytes = new byte[len + 2];
+        Arrays.fill(bytes, (byte) '#');
+        assertEquals(2 + len, Integer.formatDecimal(x, bytes, 2));
+        assertEquals("##" + expected, new String(bytes, StandardCharsets.US_ASCII));
+
+        //少一个位置时抛出异常，不写入任何内容
+        checkRejected(x, len - 1, 0);
+        checkRejected(x, len + 1, 2);
+    }
+
+    private static void checkRejected(int x, int length, int off) {
+        char[] chars = new char[length];
+        try {
+            Integer.formatDecimal(x, chars, off);
+            fail(java.lang.Integer.toString(x));
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertEquals(new String(new char[length]), new String(chars));
+        byte[] bytes = new byte[length];
+        try {
+            Integer.formatDecimal(x, bytes, off);
+            fail(java.lang.Integer.toString(x));
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        for (byte b : bytes) {
+            assertEquals(0, b);
+        }
+    }
+
+    @Test
+    public void boundariesMatchJdk() {
+        for (int x : boundaries()) {
+            check(x);
+        }
+    }
+
+    @Test
+    public void randomValuesMatchJdk() {
+        Random r = new Random(16);
+        for (int i = 0; i < 500000; i++) {
+            //各种位数和符号都要覆盖到
+            check(r.nextInt() >> r.nextInt(32));
+        }
+    }
+
+    @Test
+    public void minValue() {
+        char[] chars = new char[11];
+        assertEquals(11, Integer.formatDecimal(java.lang.Integer.MIN_VALUE, chars, 0));
+        assertEquals("-2147483648", new String(chars));
+        byte[] bytes = new byte[13];
+        assertEquals(12, Integer.formatDecimal(java.lang.Integer.MIN_VALUE, bytes, 1));
+        assertEquals("-2147483648", new String(bytes, 1, 11, StandardCharsets.US_ASCII));
+        checkRejected(java.lang.Integer.MIN_VALUE, 10, 0);
+        checkRejected(java.lang.Integer.MIN_VALUE, 11, 1);
+        checkRejected(java.lang.Integer.MIN_VALUE, 11, -1);
+        checkRejected(java.lang.Integer.MIN_VALUE, 11, 12);
+    }
+
+    @Test
+    public void invalidOffsets() {
+        checkRejected(5, 4, -1);
+        checkRejected(5, 4, 4);
+        checkRejected(5, 4, 5);
+        checkRejected(-5, 4, 3);
+        checkRejected(-5, 4, java.lang.Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,120 @@
+package com.zx.jdk.lang.basic;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Integer.parseInt的三个重载(String、byte[]、CharSequence)和java.lang.Integer.parseInt的差分测试
+ * 十进制不超过9位数字时走SWAR快速路径，其他情况走逐字符循环，两条路径都要覆盖
+ */
+public class IntegerParseTest {
+
+    //三个重载的结果必须和java.lang.Integer.parseInt相同，失败时都抛出NumberFormatException
+    private static void check(String s, int radix) {
+        int expected;
+        try {
+            expected = java.lang.Integer.parseInt(s, radix);
+        } catch (NumberFormatException ex) {
+            expectFailure(s, radix);
+            return;
+        }
+        assertEquals(s, expected, Integer.parseInt(s, radix));
+        String padded = "<" + s + ">";
+        assertEquals(s, expected, Integer.parseInt(padded, 1, padded.length() - 1, radix));
+        assertEquals(s, expected, Integer.parseInt(new StringBuilder(padded), 1, padded.length() - 1, radix));
+        if (isLatin1(s)) {
+            byte[] b = padded.getBytes(StandardCharsets.ISO_8859_1);
+            assertEquals(s, expected, Integer.parseInt(b, 1, b.length - 2, radix));
+        }
+    }
+
+    private static void expectFailure(String s, int radix) {
+        try {
+            Integer.parseInt(s, radix);
+            fail("String: " + s);
+        } catch (NumberFormatException ok) {
+        }
+        try {
+            Integer.parseInt(new StringBuilder(s), 0, s.length(), radix);
+            fail("CharSequence: " + s);
+        } catch (NumberFormatException ok) {
+        }
+        if (isLatin1(s)) {
+            byte[] b = s.getBytes(StandardCharsets.ISO_8859_1);
+            try {
+                Integer.parseInt(b, 0, b.length, radix);
+                fail("byte[]: " + s);
+            } catch (NumberFormatException ok) {
+            }
+        }
+    }
+
+    //byte[]重载按ISO-8859-1解释字节，只比较能用单字节表示的字符串
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void boundaries() {
+        String[] values = {
+                "0", "-0", "+0", "1", "-1", "9", "12345678", "-12345678", "123456789", "-123456789",
+                "999999999", "1000000000", "2147483647", "-2147483648", "2147483648", "-2147483649",
+                "00000000", "000000000", "0000000001", "00000000000000000000042", "99999999", "+99999999",
+                "", "+", "-", "--1", "+-1", "1-", "12345678a", "1234567:8", "/2345678", "1234 5678",
+                "١٢٣", "1234567٨", "١٢٣٤٥٦٧٨",
+                "１２３４５６７８", "1234567İ", "¹²", "12345678\u0000",
+        };
+        for (String s : values) {
+            check(s, 10);
+        }
+    }
+
+    @Test
+    public void otherRadixes() {
+        String[] values = {"7fffffff", "-80000000", "80000000", "zzzzzz", "ZZ", "101", "-101", "1g"};
+        for (int radix : new int[] {2, 8, 16, 36}) {
+            for (String s : values) {
+                check(s, radix);
+            }
+        }
+    }
+
+    @Test
+    public void randomDifferential() {
+        Random r = new Random(12);
+        char[] alphabet = "0123456789+-/:a ٣".toCharArray();
+        for (int i = 0; i < 500_000; i++) {
+            String s;
+            switch (r.nextInt(4)) {
+                case 0:
+                    s = java.lang.Integer.toString(r.nextInt());
+                    break;
+                case 1:
+                    s = java.lang.Integer.toString(r.nextInt(1_000_000_000));
+                    break;
+                case 2:
+                    s = java.lang.Long.toString(r.nextLong() % 100_000_000_000L);
+                    break;
+                default:
+                    StringBuilder sb = new StringBuilder();
+                    int n = r.nextInt(12);
+                    for (int k = 0; k < n; k++) {
+                        sb.append(r.nextInt(8) == 0 ? alphabet[r.nextInt(alphabet.length)]
+                                : (char) ('0' + r.nextInt(10)));
+                    }
+                    s = sb.toString();
+            }
+            check(s, 10);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.zx.jdk.lang.basic;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Long.valueOf()的缓存范围和统计
+ * 缓存上限和是否统计都是在类初始化时从jvm启动参数读取的，所以配置过的情况在子进程中运行main()检查
+ */
+public class LongCacheTest {
+
+    @Test
+    public void defaultBound() {
+        assertEquals(127, Long.getCacheHigh());
+    }
+
+    @Test
+    public void valueOfIsIdentityInsideCacheRange() {
+        for (long l = -128; l <= Long.getCacheHigh(); l++) {
+            assertSame(Long.valueOf(l), Long.valueOf(l));
+            assertEquals(l, Long.valueOf(l).longValue());
+        }
+        long[] outside = {-129, Long.getCacheHigh() + 1, java.lang.Long.MIN_VALUE, java.lang.Long.MAX_VALUE};
+        for (long l : outside) {
+            assertNotSame(Long.valueOf(l), Long.valueOf(l));
+            assertEquals(l, Long.valueOf(l).longValue());
+        }
+    }
+
+    @Test
+    public void countersDisabledByDefault() {
+        long hits = Long.getCacheHitCount();
+        long misses = Long.getCacheMissCount();
+        Long.valueOf(1);
+        Long.valueOf(1000);
+        assertEquals(0, hits);
+        assertEquals(0, misses);
+        assertEquals(0, Long.getCacheHitCount());
+        assertEquals(0, Long.getCacheMissCount());
+    }
+
+    @Test
+    public void configuredBoundAndCounters() throws Exception {
+        //缓存范围内1129个值各命中两次，范围外2次未命中
+        assertEquals("1000 true 2258 2", run("-Djava.lang.Long.LongCache.high=1000",
+                "-Djava.lang.Long.LongCache.stats=true"));
+        //上限不能小于127，无法解析时使用127；没有开启统计时计数始终为0
+        assertEquals("127 true 512 2", run("-Djava.lang.Long.LongCache.high=50",
+                "-Djava.lang.Long.LongCache.stats=true"));
+        assertEquals("127 true 0 0", run("-Djava.lang.Long.LongCache.high=abc"));
+    }
+
+    //在子进程中运行main()，返回它的输出
+    private static String run(String... properties) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String[] command = new String[properties.length + 4];
+        command[0] = java;
+        System.arraycopy(properties, 0, command, 1, properties.length);
+        command[properties.length + 1] = "-cp";
+        command[properties.length + 2] = System.getProperty("java.class.path");
+        command[properties.length + 3] = LongCacheTest.class.getName();
+        Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = p.getInputStream()) {
+            byte[] buf = new byte[256];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+        }
+        assertEquals(0, p.waitFor());
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    //子进程：缓存范围内的每个值调用两次valueOf()，范围外的两个值各一次，输出 上限 范围内是否同一对象 命中次数 未命中次数
+    public static void main(String[] args) {
+        long high = Long.getCacheHigh();
+        boolean same = true;
+        for (long l = -128; l <= high; l++) {
+            same &= Long.valueOf(l) == Long.valueOf(l);
+        }
+        Long.valueOf(-129);
+        Long.valueOf(high + 1);
+        System.out.println(high + " " + same + " " + Long.getCacheHitCount() + " " + Long.getCacheMissCount());
+    }
+}
@@ -0,0 +1,141 @@
+package com.zx.jdk.lang.basic;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Long.getChars()的8位分块输出和java.lang.Long.toString()的差分测试
+ */
+public class LongFormatTest {
+
+    //按位数分界的边界值：10^k - 1、10^k、10^k + 1，以及int、8位块、16位块的边界
+    private static long[] boundaries() {
+        long[] b = new long[19 * 6 + 16];
+        int n = 0;
+        long p = 1;
+        for (int k = 0; k < 19; k++) {
+            b[n++] = p - 1;
+            b[n++] = p;
+            b[n++] = p + 1;
+            b[n++] = -(p - 1);
+            b[n++] = -p;
+            b[n++] = -(p + 1);
+            p *= 10;
+        }
+        long[] extra = {
+                java.lang.Long.MAX_VALUE, java.lang.Long.MIN_VALUE, java.lang.Long.MIN_VALUE + 1,
+                java.lang.Integer.MAX_VALUE, java.lang.Integer.MAX_VALUE + 1L,
+                java.lang.Integer.MIN_VALUE, java.lang.Integer.MIN_VALUE - 1L,
+                100000000L * 100000000L - 1, 100000000L * 100000000L,
+                99999999L * 100000000L + 99999999L, 1234567890123456789L,
+                (long) java.lang.Integer.MAX_VALUE * 100000000L, 1L << 62, -(1L << 62),
+                4294967295L, 4294967296L
+        };
+        for (long x : extra) {
+            b[n++] = x;
+        }
+        return b;
+    }
+
+    private static void check(long x) {
+        String expected = java.lang.Long.toString(x);
+        assertEquals(expected, Long.toString(x));
+
+        char[] chars = new char[expected.length() + 3];
+        assertEquals(2 + expected.length(), Long.formatDecimal(x, chars, 2));
+        assertEquals(expected, new String(chars, 2, expected.length()));
+
+        byte[] bytes = new byte[expected.length() + 3];
+        assertEquals(1 + expected.length(), Long.formatDecimal(x, bytes, 1));
+        assertEquals(expected, new String(bytes, 1, expected.length(),
+                java.nio.charset.StandardCharsets.US_ASCII));
+
+        //正好放得下
+        chars = new char[expected.length()];
+        assertEquals(expected.length(), Long.formatDecimal(x, chars, 0));
+        assertEquals(expected, new String(chars));
+        bytes = new byte[expected.length() + 1];
+        assertEquals(expected.length() + 1, Long.formatDecimal(x, bytes, 1));
+        assertEquals(expected, new String(bytes, 1, expected.length(),
+                java.nio.charset.StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void boundariesMatchJdk() {
+        for (long x : boundaries()) {
+            check(x);
+        }
+    }
+
+    @Test
+    public void randomValuesMatchJdk() {
+        Random r = new Random(14);
+        for (int i = 0; i < 500000; i++) {
+            long x = r.nextLong();
+            //各种位数都要覆盖到
+            check(x >> r.nextInt(64));
+        }
+    }
+
+    @Test
+    public void divideBy100000000IsExact() {
+        Random r = new Random(15);
+        for (long x : boundaries()) {
+            if (x >= 0) {
+                assertEquals(x / 100000000L, Long.divideBy100000000(x));
+            }
+        }
+        for (int i = 0; i < 1000000; i++) {
+            long x = r.nextLong() >>> (1 + r.nextInt(63));
+            assertEquals(x / 100000000L, Long.divideBy100000000(x));
+            //商变化处的两侧
+            long q = x / 100000000L * 100000000L;
+            assertEquals(q / 100000000L, Long.divideBy100000000(q));
+            if (q > 0) {
+                assertEquals((q - 1) / 100000000L, Long.divideBy100000000(q - 1));
+            }
+        }
+    }
+
+    @Test
+    public void formatDecimalRejectsShortBufferWithoutWriting() {
+        char[] chars = new char[5];
+        byte[] bytes = new byte[5];
+        try {
+            Long.formatDecimal(123456L, chars, 0);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            Long.formatDecimal(java.lang.Long.MIN_VALUE, bytes, 0);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            Long.formatDecimal(1L, bytes, -1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        //MIN_VALUE走putAscii()，少一个位置时同样不写入
+        char[] minChars = new char[20];
+        try {
+            Long.formatDecimal(java.lang.Long.MIN_VALUE, minChars, 1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertEquals(new String(new char[20]), new String(minChars));
+        try {
+            Long.formatDecimal(-1234567890123L, chars, 0);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, chars[i]);
+            assertEquals(0, bytes[i]);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.zx.jdk.lang.basic;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Long.parseLong和java.lang.Long.parseLong的差分测试
+ * 十进制不超过18位数字时走SWAR快速路径(每8位一次)，其他情况走逐字符循环
+ */
+public class LongParseTest {
+
+    private static void check(String s, int radix) {
+        long expected;
+        try {
+            expected = java.lang.Long.parseLong(s, radix);
+        } catch (NumberFormatException ex) {
+            try {
+                Long.parseLong(s, radix);
+                fail(s);
+            } catch (NumberFormatException ok) {
+            }
+            return;
+        }
+        assertEquals(s, expected, Long.parseLong(s, radix));
+    }
+
+    @Test
+    public void boundaries() {
+        String[] values = {
+                "0", "-0", "+0", "1", "-1", "12345678", "-12345678", "1234567812345678", "123456781234567",
+                "12345678123456789", "123456789012345678", "-123456789012345678", "999999999999999999",
+                "1000000000000000000", "9223372036854775807", "-9223372036854775808",
+                "9223372036854775808", "-9223372036854775809", "000000000000000000", "0000000000000000001",
+                "", "+", "-", "--1", "12345678a2345678", "1234567812345:78", "/23456781234567",
+                "1234567812345678٨", "١٢٣٤٥٦٧٨12345678", "12345678\u000012345678",
+        };
+        for (String s : values) {
+            check(s, 10);
+        }
+        for (String s : new String[] {"7fffffffffffffff", "-8000000000000000", "8000000000000000", "zz"}) {
+            check(s, 16);
+            check(s, 36);
+        }
+    }
+
+    @Test
+    public void randomDifferential() {
+        Random r = new Random(13);
+        for (int i = 0; i < 300_000; i++) {
+            String s;
+            switch (r.nextInt(3)) {
+                case 0:
+                    s = java.lang.Long.toString(r.nextLong());
+                    break;
+                case 1:
+                    s = java.lang.Long.toString(r.nextLong() >> r.nextInt(64));
+                    break;
+                default:
+                    StringBuilder sb = new StringBuilder(java.lang.Long.toString(r.nextLong() >>> r.nextInt(64)));
+                    //把一个数字换成非数字字符，SWAR校验失败时必须回到逐字符循环
+                    sb.setCharAt(r.nextInt(sb.length()), "/:a ٣".charAt(r.nextInt(5)));
+                    s = sb.toString();
+            }
+            check(s, 10);
+        }
+    }
+}
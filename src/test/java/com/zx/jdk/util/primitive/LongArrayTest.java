@@ -0,0 +1,158 @@
+package com.zx.jdk.util.primitive;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class LongArrayTest {
+
+    //每页8个元素，让测试跨越页边界
+    private static final int SHIFT = 3;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("longarray", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    //和本地字节顺序不同的字节顺序
+    private static ByteOrder swapped() {
+        return ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    }
+
+    @Test
+    public void getAndSetAcrossPageBoundaries() {
+        LongArray a = new LongArray(21, ByteOrder.nativeOrder(), SHIFT);
+        assertEquals(21, a.length());
+        for (long i = 0; i < a.length(); i++) {
+            assertEquals(0, a.get(i));
+            a.set(i, i * 0x0101010101010101L - 7);
+        }
+        for (long i = 0; i < a.length(); i++) {
+            assertEquals(i * 0x0101010101010101L - 7, a.get(i));
+        }
+        a.fill(-1);
+        assertEquals(-1, a.get(7));
+        assertEquals(-1, a.get(8));
+        assertEquals(-1, a.get(20));
+    }
+
+    @Test
+    public void outOfRangeIndexesAreRejected() {
+        LongArray a = new LongArray(9, ByteOrder.nativeOrder(), SHIFT);
+        for (long i : new long[] {-1, 9, Long.MAX_VALUE}) {
+            try {
+                a.get(i);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void swappedOrderIsStoredInThatOrder() throws IOException {
+        ByteOrder order = swapped();
+        LongArray a = new LongArray(10, order, SHIFT);
+        for (long i = 0; i < 10; i++) {
+            a.set(i, 0x0102030405060708L + i);
+        }
+        for (long i = 0; i < 10; i++) {
+            assertEquals(0x0102030405060708L + i, a.get(i));
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            a.writeTo(ch);
+        }
+        ByteBuffer raw = ByteBuffer.wrap(Files.readAllBytes(file)).order(order);
+        assertEquals(80, raw.remaining());
+        for (long i = 0; i < 10; i++) {
+            assertEquals(0x0102030405060708L + i, raw.getLong());
+        }
+    }
+
+    @Test
+    public void fileRoundTrip() throws IOException {
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.nativeOrder(), swapped()}) {
+            LongArray a = new LongArray(19, order, SHIFT);
+            for (long i = 0; i < 19; i++) {
+                a.set(i, Long.MIN_VALUE + i * 31);
+            }
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ch.truncate(0);
+                ch.write(ByteBuffer.wrap(new byte[5]));
+                a.writeTo(ch, 5);
+                LongArray b = LongArray.load(ch, 5, 19, order);
+                for (long i = 0; i < 19; i++) {
+                    assertEquals(a.get(i), b.get(i));
+                }
+                //通道的当前位置不受影响
+                assertEquals(5, ch.position());
+                LongArray c = new LongArray(19, order, SHIFT);
+                c.readFrom(ch);
+                assertEquals(a.get(18), c.get(18));
+            }
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void loadFromShortFileFails() throws IOException {
+        Files.write(file, new byte[8 * 10 - 1]);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            LongArray.load(ch, 0, 10, ByteOrder.nativeOrder());
+        }
+    }
+
+    @Test
+    public void accessAfterCloseFails() {
+        LongArray a = new LongArray(20, ByteOrder.nativeOrder(), SHIFT);
+        a.set(15, 1);
+        a.close();
+        assertEquals(0, a.length());
+        try {
+            a.get(15);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            a.set(0, 1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        a.close();
+    }
+
+    @Test
+    public void doubleArrayKeepsNaNPayloads() throws IOException {
+        DoubleArray d = new DoubleArray(12, swapped(), SHIFT);
+        double nan = Double.longBitsToDouble(0x7ff0000000000123L);
+        d.set(7, nan);
+        d.set(8, -0.0);
+        d.set(11, Math.PI);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            d.writeTo(ch, 0);
+            DoubleArray e = DoubleArray.load(ch, 0, 12, swapped());
+            assertEquals(0x7ff0000000000123L, Double.doubleToRawLongBits(e.get(7)));
+            assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(e.get(8)));
+            assertEquals(Math.PI, e.get(11), 0.0);
+        }
+        d.close();
+        assertEquals(0, d.length());
+    }
+}
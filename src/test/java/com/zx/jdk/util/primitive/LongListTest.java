@@ -0,0 +1,73 @@
+package com.zx.jdk.util.primitive;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongListTest {
+
+    @Test
+    public void randomOperationsMatchArrayList() {
+        Random r = new Random(180);
+        LongList list = new LongList();
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            long v = r.nextInt(100);
+            switch (r.nextInt(5)) {
+                case 0:
+                case 1:
+                    list.add(v);
+                    expected.add(v);
+                    break;
+                case 2:
+                    int at = r.nextInt(expected.size() + 1);
+                    list.add(at, v);
+                    expected.add(at, v);
+                    break;
+                case 3:
+                    if (!expected.isEmpty()) {
+                        int idx = r.nextInt(expected.size());
+                        assertEquals((long) expected.remove(idx), list.removeAt(idx));
+                    }
+                    break;
+                default:
+                    if (!expected.isEmpty()) {
+                        int idx = r.nextInt(expected.size());
+                        assertEquals((long) expected.set(idx, v), list.set(idx, v));
+                    }
+            }
+            assertEquals(expected.size(), list.size());
+            assertEquals(expected.indexOf(v), list.indexOf(v));
+            assertEquals(expected.lastIndexOf(v), list.lastIndexOf(v));
+        }
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), list.toArray());
+        assertEquals(expected.toString(), list.toString());
+    }
+
+    @Test
+    public void addAllSortAndTrim() {
+        LongList list = new LongList(0);
+        list.addAll(new long[] {9, 3, 7, 1}, 1, 3);
+        list.sort();
+        assertArrayEquals(new long[] {1, 3, 7}, list.toArray());
+        list.trimToSize();
+        assertTrue(list.contains(7));
+        assertEquals(11, list.stream().sum());
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(list.contains(7));
+        assertEquals("[]", list.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfRangeThrows() {
+        new LongList(new long[] {1, 2}).get(2);
+    }
+}
@@ -0,0 +1,129 @@
+package com.zx.jdk.util.primitive;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongLongMapTest {
+
+    //检查map和HashMap的内容完全相同
+    private static void assertSameContent(Map<Long, Long> expected, LongLongMap map) {
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            assertTrue(map.containsKey(e.getKey()));
+            assertEquals((long) e.getValue(), map.get(e.getKey()));
+        }
+        int[] count = {0};
+        map.forEach((k, v) -> {
+            assertEquals(expected.get(k), Long.valueOf(v));
+            count[0]++;
+        });
+        assertEquals(expected.size(), count[0]);
+    }
+
+    @Test
+    public void putGetAndNoEntryValue() {
+        LongLongMap map = new LongLongMap(4, 0.5f, -1);
+        assertEquals(-1, map.get(7));
+        assertEquals(-1, map.put(7, 70));
+        assertEquals(70, map.put(7, 71));
+        assertEquals(71, map.get(7));
+        assertEquals(5, map.getOrDefault(8, 5));
+        assertEquals(1, map.size());
+        assertFalse(map.isEmpty());
+    }
+
+    @Test
+    public void zeroKeyIsStoredSeparately() {
+        LongLongMap map = new LongLongMap();
+        assertFalse(map.containsKey(0));
+        map.put(0, 10);
+        map.put(1, 11);
+        assertTrue(map.containsKey(0));
+        assertEquals(2, map.size());
+        assertEquals(10, map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(11, map.get(1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void addToAccumulates() {
+        LongLongMap map = new LongLongMap();
+        for (int i = 0; i < 1000; i++) {
+            map.addTo(i % 10, 1L);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(100, map.get(i));
+        }
+    }
+
+    /**
+     * 不扩容的小表中放满键，必然形成长探测链并且跨过数组末尾；
+     * 按随机顺序逐个删除，每次删除后所有剩下的键都必须还能找到(后移删除不能打断探测链)
+     */
+    @Test
+    public void backwardShiftDeleteKeepsProbeChainsIntact() {
+        Random r = new Random(18);
+        for (int round = 0; round < 2000; round++) {
+            //容量16，阈值12，放12个键不会扩容
+            LongLongMap map = new LongLongMap(12);
+            Map<Long, Long> expected = new HashMap<>();
+            while (expected.size() < 12) {
+                long k = round < 1000 ? r.nextInt(64) + 1 : r.nextLong() | 1;
+                expected.put(k, k * 3);
+                map.put(k, k * 3);
+            }
+            List<Long> order = new ArrayList<>(expected.keySet());
+            Collections.shuffle(order, r);
+            for (long k : order) {
+                assertEquals(k * 3, map.remove(k));
+                expected.remove(k);
+                assertEquals(0, map.remove(k));
+                assertFalse(map.containsKey(k));
+                assertSameContent(expected, map);
+            }
+            assertTrue(map.isEmpty());
+        }
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random r = new Random(1818);
+        LongLongMap map = new LongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long k = r.nextInt(2000) - 1000;
+            long v = r.nextLong();
+            switch (r.nextInt(4)) {
+                case 0:
+                case 1:
+                    Long prev = expected.put(k, v);
+                    assertEquals(prev == null ? 0 : prev, map.put(k, v));
+                    break;
+                case 2:
+                    Long removed = expected.remove(k);
+                    assertEquals(removed == null ? 0 : removed, map.remove(k));
+                    break;
+                default:
+                    expected.merge(k, v, Long::sum);
+                    map.addTo(k, v);
+            }
+        }
+        assertSameContent(expected, map);
+        long[] keys = map.keys();
+        assertEquals(expected.size(), keys.length);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(keys.length > 0 ? keys[0] : 1));
+    }
+}